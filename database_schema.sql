@@ -26,7 +26,9 @@ CREATE TABLE IF NOT EXISTS products (
     stock INT NOT NULL DEFAULT 0,
     min_stock INT NOT NULL DEFAULT 5,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_products_name (name),
+    INDEX idx_products_category (category, name)
 );
 
 -- Transactions table
@@ -40,6 +42,8 @@ CREATE TABLE IF NOT EXISTS transactions (
     total DECIMAL(12, 2) NOT NULL DEFAULT 0,
     payment DECIMAL(12, 2) NOT NULL DEFAULT 0,
     change_amount DECIMAL(12, 2) DEFAULT 0,
+    client_ref VARCHAR(40) NULL UNIQUE,
+    INDEX idx_transaction_date (transaction_date),
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE SET NULL
 );
 
@@ -56,6 +60,28 @@ CREATE TABLE IF NOT EXISTS transaction_items (
     FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE SET NULL
 );
 
+-- Sales per day, hour and cashier, updated together with each sale
+CREATE TABLE IF NOT EXISTS sales_rollup (
+    sale_date DATE NOT NULL,
+    sale_hour TINYINT NOT NULL,
+    user_id INT NOT NULL DEFAULT 0,
+    transaction_count INT NOT NULL DEFAULT 0,
+    total_sales DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (sale_date, sale_hour, user_id)
+);
+
+-- Sequences for IDs reserved in blocks by each terminal
+CREATE TABLE IF NOT EXISTS id_sequences (
+    name VARCHAR(40) PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
+
+-- Progress markers for one-off data jobs such as the sales rollup backfill
+CREATE TABLE IF NOT EXISTS app_state (
+    name VARCHAR(40) PRIMARY KEY,
+    value VARCHAR(40) NOT NULL
+);
+
 -- Insert default admin user (password: admin123)
 INSERT INTO users (username, password, full_name, role) VALUES 
 ('admin', 'admin123', 'Administrator', 'ADMIN');
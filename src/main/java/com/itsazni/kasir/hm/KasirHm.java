@@ -1,8 +1,18 @@
 package com.itsazni.kasir.hm;
 
 import com.formdev.flatlaf.FlatDarkLaf;
+import com.itsazni.kasir.hm.dao.CheckoutJournal;
 import com.itsazni.kasir.hm.dao.DatabaseConnection;
+import com.itsazni.kasir.hm.dao.GroupCommitWriter;
+import com.itsazni.kasir.hm.dao.ProductCatalog;
+import com.itsazni.kasir.hm.dao.SalesRollupDAO;
+import com.itsazni.kasir.hm.dao.SchemaMigrator;
+import com.itsazni.kasir.hm.dao.TransactionIdAllocator;
+import com.itsazni.kasir.hm.ui.DebouncedSearch;
 import com.itsazni.kasir.hm.ui.LoginPanel;
+import com.itsazni.kasir.hm.ui.ProductListModel;
+import com.itsazni.kasir.hm.ui.ScannerInputDetector;
+import com.itsazni.kasir.hm.utils.BarcodeScanner;
 import javax.swing.*;
 
 /**
@@ -28,6 +38,36 @@ public class KasirHm {
             System.err.println("Failed to initialize FlatLaf: " + e.getMessage());
         }
         
+        // Release pooled connections on exit; report only what was started
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            CheckoutJournal journal = CheckoutJournal.getExistingInstance();
+            if (journal != null) {
+                journal.close();
+                System.err.println(journal.getStatsSummary());
+            }
+            GroupCommitWriter groupCommit = GroupCommitWriter.getExistingInstance();
+            if (groupCommit != null) {
+                System.err.println(groupCommit.getStatsSummary());
+            }
+            TransactionIdAllocator idAllocator = TransactionIdAllocator.getExistingInstance();
+            if (idAllocator != null) {
+                System.err.println(idAllocator.getStatsSummary());
+            }
+            ProductCatalog catalog = ProductCatalog.getExistingInstance();
+            if (catalog != null) {
+                System.err.println(catalog.getStatsSummary());
+            }
+            System.err.println(DebouncedSearch.getStatsSummary());
+            System.err.println(ProductListModel.getStatsSummary());
+            System.err.println(ScannerInputDetector.getStatsSummary());
+            System.err.println(BarcodeScanner.getStatsSummary());
+            DatabaseConnection db = DatabaseConnection.getExistingInstance();
+            if (db != null) {
+                System.err.println(db.getPool().getStatsSummary());
+                db.closeConnection();
+            }
+        }, "shutdown"));
+
         // Test database connection
         SwingUtilities.invokeLater(() -> {
             // Show splash/loading
@@ -38,7 +78,14 @@ public class KasirHm {
             SwingWorker<Boolean, Void> worker = new SwingWorker<>() {
                 @Override
                 protected Boolean doInBackground() {
-                    return DatabaseConnection.getInstance().testConnection();
+                    if (!DatabaseConnection.getInstance().testConnection()) {
+                        return false;
+                    }
+                    // Bring older databases up to the current schema
+                    new SchemaMigrator().migrate();
+                    // Load the product catalog here rather than on the first scan on the EDT
+                    ProductCatalog.getInstance().load();
+                    return true;
                 }
                 
                 @Override
@@ -46,6 +93,14 @@ public class KasirHm {
                     splash.dispose();
                     try {
                         if (get()) {
+                            // Start syncing sales journaled in an earlier session
+                            CheckoutJournal.getInstance();
+                            
+                            // Fill the sales rollup from older transactions
+                            Thread backfill = new Thread(() -> new SalesRollupDAO().backfillMissing(), "rollup-backfill");
+                            backfill.setDaemon(true);
+                            backfill.start();
+                            
                             // Show login panel
                             LoginPanel loginPanel = new LoginPanel();
                             loginPanel.setVisible(true);
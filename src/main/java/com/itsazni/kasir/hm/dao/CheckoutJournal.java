@@ -0,0 +1,763 @@
+package com.itsazni.kasir.hm.dao;
+
+import com.itsazni.kasir.hm.models.Money;
+import com.itsazni.kasir.hm.models.Transaction;
+import com.itsazni.kasir.hm.models.TransactionItem;
+import com.itsazni.kasir.hm.utils.AppConfig;
+import com.itsazni.kasir.hm.utils.Histogram;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Local append-only journal that a sale is committed to before MySQL.
+ *
+ * Sales are appended to memory-mapped segment files (journal/segment-N.log).
+ * A flusher thread forces the mapped pages to disk in batches and append()
+ * returns once its record is durable, so checkout waits on the local disk
+ * only. A syncer thread replays durable records into MySQL in order through
+ * TransactionDAO.replay, which is idempotent on transactions.client_ref, and
+ * records how far it got in a checkpoint file. Fully synced segments are
+ * deleted.
+ *
+ * A sale the database rejects for good (constraint or data errors, e.g. a
+ * product deleted meanwhile) is moved to the dead-letter file so it does
+ * not hold back the sales after it; other errors are retried.
+ *
+ * Record layout: int payload length, int CRC32 of the payload, payload.
+ * A zero length marks the end of the written part of a segment.
+ */
+public class CheckoutJournal {
+
+    private static final int HEADER_BYTES = 8;
+    /** Version 2 added the transaction ID assigned at checkout */
+    private static final int FORMAT_VERSION = 2;
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    /** Rejected records, in the same layout as a segment */
+    private static final String DEAD_LETTER_FILE = "dead-letter.log";
+    private static final DateTimeFormatter REF_FORMAT = DateTimeFormatter.ofPattern("yyMMddHHmmss");
+
+    private static CheckoutJournal instance;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final long flushIntervalMs;
+    private final long retryMs;
+    private final int replayBatch;
+    private final TransactionDAO transactionDAO;
+    private final ProductCatalog catalog;
+    private final TransactionIdAllocator idAllocator;
+
+    // Writer state, guarded by lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition dirty = lock.newCondition();
+    private final Condition durable = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    private MappedByteBuffer writeBuffer;
+    private int writeSegment;
+    private long writtenPosition;
+    private long durablePosition;
+    private int unflushedRecords;
+    private volatile boolean running;
+
+    // Syncer state
+    private int readSegment;
+    private int readOffset;
+    private volatile long oldestPendingAt;
+
+    private Thread flusher;
+    private Thread syncer;
+
+    // Metrics
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder replayErrors = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder pending = new LongAdder();
+    private final Histogram appendLatency = new Histogram();
+    private final Histogram flushLatency = new Histogram();
+    private final Histogram flushBatchSize = new Histogram();
+    private final Histogram replayLatency = new Histogram();
+    private final Histogram replayBatchSize = new Histogram();
+
+    private CheckoutJournal() {
+        AppConfig config = AppConfig.getInstance();
+        this.enabled = config.getBooleanProperty("journal.enabled", true);
+        this.directory = Paths.get(config.getProperty("journal.dir",
+                config.getDataDirectory().resolve("journal").toString()));
+        this.segmentBytes = config.getIntProperty("journal.segmentBytes", 4 * 1024 * 1024);
+        this.flushIntervalMs = config.getLongProperty("journal.flushIntervalMs", 2);
+        this.retryMs = config.getLongProperty("journal.retryMs", 2000);
+        this.replayBatch = Math.max(1, config.getGroupCommitMaxBatch());
+        this.transactionDAO = new TransactionDAO();
+        this.catalog = ProductCatalog.getInstance();
+        this.idAllocator = TransactionIdAllocator.getInstance();
+
+        if (enabled) {
+            try {
+                open();
+            } catch (IOException e) {
+                System.err.println("Error opening checkout journal, saving directly to database: " + e.getMessage());
+            }
+        }
+    }
+
+    public static synchronized CheckoutJournal getInstance() {
+        if (instance == null) {
+            instance = new CheckoutJournal();
+        }
+        return instance;
+    }
+
+    /**
+     * The instance if it was created already, otherwise null
+     */
+    public static synchronized CheckoutJournal getExistingInstance() {
+        return instance;
+    }
+
+    /**
+     * True when checkout should go through the journal
+     */
+    public boolean isEnabled() {
+        return enabled && running;
+    }
+
+    /**
+     * Journal a completed sale and wait until it is on local disk. Assigns the
+     * client ref, sale time and, when an ID block is reserved, the transaction
+     * ID; applies the stock change to the catalog.
+     *
+     * Throws IOException only when nothing was written, so the caller may
+     * then save the sale directly without it also being replayed. Once the
+     * record is written it stays journaled: if the journal is closed or the
+     * wait is interrupted before the flush is confirmed, the record is still
+     * replayed on this or the next start.
+     */
+    public void append(Transaction transaction) throws IOException {
+        if (!isEnabled()) {
+            throw new IOException("Checkout journal is not open");
+        }
+        long start = System.nanoTime();
+        transaction.setTransactionDate(LocalDateTime.now());
+        if (transaction.getClientRef() == null) {
+            transaction.setClientRef(newClientRef(transaction.getTransactionDate()));
+        }
+        if (transaction.getId() <= 0) {
+            // 0 when no block is reserved yet; the syncer assigns one on replay
+            transaction.setId(idAllocator.tryNextId());
+        }
+        byte[] payload = encode(transaction, System.currentTimeMillis());
+        if (payload.length + HEADER_BYTES * 2 > segmentBytes) {
+            throw new IOException("Transaction too large for journal segment");
+        }
+
+        lock.lock();
+        try {
+            if (!running) {
+                throw new IOException("Checkout journal is not open");
+            }
+            if (offset(writtenPosition) + HEADER_BYTES + payload.length + HEADER_BYTES > segmentBytes) {
+                rollSegment();
+            }
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            writeBuffer.position(offset(writtenPosition));
+            writeBuffer.putInt(payload.length);
+            writeBuffer.putInt((int) crc.getValue());
+            writeBuffer.put(payload);
+            long position = position(writeSegment, writeBuffer.position());
+            writtenPosition = position;
+            unflushedRecords++;
+            appended.increment();
+            pending.increment();
+            dirty.signal();
+
+            // close() flushes before it stops the threads, so this only ends early on interrupt
+            while (running && durablePosition < position) {
+                durable.await(100, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            // Written to the mapped segment already; the flusher or the OS still writes it out
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+
+        for (TransactionItem item : transaction.getItems()) {
+            catalog.adjustStock(item.getProductId(), -item.getQuantity());
+        }
+        appendLatency.recordSince(start);
+    }
+
+    /**
+     * Stop the background threads after a final flush
+     */
+    public void close() {
+        if (!running) return;
+        lock.lock();
+        try {
+            flush();
+            running = false;
+            dirty.signalAll();
+            durable.signalAll();
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (syncer != null) syncer.interrupt();
+    }
+
+    // ==================== WRITER ====================
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Integer> segments = listSegments();
+        if (segments.isEmpty()) {
+            segments.add(1);
+        }
+
+        // Resume syncing where the last run stopped
+        long checkpoint = readCheckpoint();
+        readSegment = Math.max(segment(checkpoint), segments.get(0));
+        readOffset = segment(checkpoint) == readSegment ? offset(checkpoint) : 0;
+
+        // Count what is still to be synced and find the end of the last segment
+        int last = segments.get(segments.size() - 1);
+        int end = 0;
+        for (int segment : segments) {
+            if (segment < readSegment) {
+                deleteSegment(segment);
+                continue;
+            }
+            int offset = segment == readSegment ? readOffset : 0;
+            try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+                while (true) {
+                    byte[] payload = readRecord(channel, offset);
+                    if (payload == null) break;
+                    pending.increment();
+                    offset += HEADER_BYTES + payload.length;
+                }
+            } catch (NoSuchFileException e) {
+                // New journal
+            }
+            if (segment == last) end = offset;
+        }
+        if (last < readSegment) {
+            last = readSegment;
+            end = readOffset;
+        }
+
+        mapSegment(last);
+        clearTail(end);
+        writtenPosition = position(last, end);
+        durablePosition = writtenPosition;
+
+        running = true;
+        flusher = new Thread(this::flushLoop, "journal-flush");
+        flusher.setDaemon(true);
+        flusher.start();
+        syncer = new Thread(this::syncLoop, "journal-sync");
+        syncer.setDaemon(true);
+        syncer.start();
+    }
+
+    private void mapSegment(int segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            writeBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        writeSegment = segment;
+    }
+
+    /**
+     * Zero a torn record left behind by a crash so it is never read back
+     */
+    private void clearTail(int from) {
+        boolean dirtyTail = false;
+        for (int i = from; i < Math.min(segmentBytes, from + HEADER_BYTES); i++) {
+            if (writeBuffer.get(i) != 0) {
+                dirtyTail = true;
+                break;
+            }
+        }
+        if (!dirtyTail) return;
+        for (int i = from; i < segmentBytes; i++) {
+            writeBuffer.put(i, (byte) 0);
+        }
+        writeBuffer.force();
+    }
+
+    /**
+     * Caller holds lock. Flushes the current segment and starts the next one.
+     */
+    private void rollSegment() throws IOException {
+        flush();
+        mapSegment(writeSegment + 1);
+        writtenPosition = position(writeSegment, 0);
+        durablePosition = writtenPosition;
+        synced.signalAll();
+    }
+
+    /**
+     * Caller holds lock
+     */
+    private void flush() {
+        if (durablePosition >= writtenPosition) return;
+        long start = System.nanoTime();
+        writeBuffer.force();
+        flushLatency.recordSince(start);
+        flushBatchSize.record(unflushedRecords);
+        unflushedRecords = 0;
+        durablePosition = writtenPosition;
+        durable.signalAll();
+        synced.signalAll();
+    }
+
+    /**
+     * Force dirty pages to disk, letting appends pile up for flushIntervalMs
+     * so that one force covers several sales
+     */
+    private void flushLoop() {
+        lock.lock();
+        try {
+            while (running) {
+                if (durablePosition >= writtenPosition) {
+                    dirty.await();
+                    continue;
+                }
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                long remaining;
+                while (running && (remaining = deadline - System.nanoTime()) > 0) {
+                    dirty.awaitNanos(remaining);
+                }
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ==================== SYNCER ====================
+
+    /**
+     * Replay durable records into MySQL in order, retrying while it is unreachable
+     */
+    private void syncLoop() {
+        FileChannel channel = null;
+        int channelSegment = -1;
+        // Records still to be replayed one by one after a batch was rejected
+        int isolate = 0;
+        try {
+            while (running) {
+                reserveIds();
+                long durableAt = awaitDurableBeyond(position(readSegment, readOffset));
+                if (durableAt < 0) break;
+
+                if (channelSegment != readSegment) {
+                    if (channel != null) channel.close();
+                    channel = FileChannel.open(segmentPath(readSegment), StandardOpenOption.READ);
+                    channelSegment = readSegment;
+                }
+
+                byte[] payload = readRecord(channel, readOffset);
+                if (payload == null) {
+                    // Nothing more in this segment; the writer has moved on
+                    if (segment(durableAt) > readSegment) {
+                        channel.close();
+                        channel = null;
+                        channelSegment = -1;
+                        int finished = readSegment;
+                        readSegment++;
+                        readOffset = 0;
+                        writeCheckpoint();
+                        deleteSegment(finished);
+                    }
+                    continue;
+                }
+
+                // Replay the durable records that follow in this segment with it
+                byte[] first = payload;
+                int limit = isolate > 0 ? 1 : replayBatch;
+                List<Transaction> batch = new ArrayList<>();
+                int batchBytes = 0;
+                oldestPendingAt = appendedAt(payload);
+                while (payload != null) {
+                    batch.add(decode(payload));
+                    batchBytes += HEADER_BYTES + payload.length;
+                    int next = readOffset + batchBytes;
+                    payload = batch.size() < limit && position(readSegment, next) < durableAt
+                            ? readRecord(channel, next) : null;
+                }
+
+                long start = System.nanoTime();
+                boolean rejected = false;
+                try {
+                    transactionDAO.replayAll(batch);
+                } catch (SQLException e) {
+                    replayErrors.increment();
+                    if (!isPermanent(e)) {
+                        System.err.println("Error syncing " + batch.size() + " journaled transactions from "
+                                + batch.get(0).getClientRef() + ", retrying: " + e.getMessage());
+                        Thread.sleep(retryMs);
+                        continue;
+                    }
+                    if (batch.size() > 1) {
+                        // Find the rejected sale by replaying the batch one sale at a time
+                        isolate = batch.size();
+                        continue;
+                    }
+                    deadLetter(first, batch.get(0), e);
+                    rejected = true;
+                }
+                if (isolate > 0) isolate--;
+                if (!rejected) {
+                    replayLatency.recordSince(start);
+                    replayBatchSize.record(batch.size());
+                    replayed.add(batch.size());
+                }
+                pending.add(-batch.size());
+                readOffset += batchBytes;
+                writeCheckpoint();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Error reading checkout journal, sync stopped: " + e.getMessage());
+        } finally {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {}
+            }
+        }
+    }
+
+    /**
+     * True for errors that replaying the same sale again cannot fix:
+     * constraint violations (SQLState class 23) and data errors (class 22).
+     * Connection, lock and schema errors are worth retrying.
+     */
+    private static boolean isPermanent(SQLException e) {
+        if (e instanceof SQLIntegrityConstraintViolationException || e instanceof SQLDataException) {
+            return true;
+        }
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("23") || state.startsWith("22"));
+    }
+
+    /**
+     * Move a rejected record to the dead-letter file so syncing can go on,
+     * and undo its stock change in the catalog since the sale never reached
+     * the database
+     */
+    private void deadLetter(byte[] payload, Transaction transaction, SQLException cause) throws IOException {
+        Path file = directory.resolve(DEAD_LETTER_FILE);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        try (FileChannel out = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (record.hasRemaining()) {
+                out.write(record);
+            }
+            out.force(true);
+        }
+        for (TransactionItem item : transaction.getItems()) {
+            catalog.adjustStock(item.getProductId(), item.getQuantity());
+        }
+        deadLettered.increment();
+        System.err.println("Error syncing journaled transaction " + transaction.getClientRef()
+                + ", rejected by the database and moved to " + file + ": " + cause.getMessage());
+    }
+
+    /**
+     * Keep transaction IDs reserved so checkouts can number receipts offline
+     */
+    private void reserveIds() {
+        try {
+            idAllocator.ensureAvailable();
+        } catch (SQLException e) {
+            System.err.println("Error reserving transaction IDs: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Wait until the journal is durable past position, or the writer moved to
+     * a later segment. Returns the durable position, or -1 when closed.
+     */
+    private long awaitDurableBeyond(long position) throws InterruptedException {
+        lock.lock();
+        try {
+            while (running && durablePosition <= position) {
+                oldestPendingAt = 0;
+                synced.await();
+            }
+            return running ? durablePosition : -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Next record at offset, or null at the end of the written data
+     */
+    private byte[] readRecord(FileChannel channel, int offset) throws IOException {
+        if (offset + HEADER_BYTES > segmentBytes) return null;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (channel.read(header, offset) < HEADER_BYTES) return null;
+        header.flip();
+        int length = header.getInt();
+        int checksum = header.getInt();
+        if (length <= 0 || offset + HEADER_BYTES + length > segmentBytes) return null;
+
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        if (channel.read(payload, offset + HEADER_BYTES) < length) return null;
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+        if ((int) crc.getValue() != checksum) return null;
+        return payload.array();
+    }
+
+    private void writeCheckpoint() {
+        Path target = directory.resolve(CHECKPOINT_FILE);
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try {
+            Files.writeString(temp, readSegment + " " + readOffset);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Losing a checkpoint only means replaying already applied sales
+            System.err.println("Error writing journal checkpoint: " + e.getMessage());
+        }
+    }
+
+    private long readCheckpoint() {
+        try {
+            String[] parts = Files.readString(directory.resolve(CHECKPOINT_FILE)).trim().split(" ");
+            return position(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        } catch (IOException | RuntimeException e) {
+            return position(1, 0);
+        }
+    }
+
+    private void deleteSegment(int segment) {
+        try {
+            Files.deleteIfExists(segmentPath(segment));
+        } catch (IOException e) {
+            // Still mapped on some platforms; cleaned up on a later start
+            System.err.println("Error deleting journal segment " + segment + ": " + e.getMessage());
+        }
+    }
+
+    private List<Integer> listSegments() throws IOException {
+        List<Integer> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.log")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.add(Integer.parseInt(name.substring(8, name.length() - 4)));
+            }
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("segment-%06d.log", segment));
+    }
+
+    private static long position(int segment, int offset) {
+        return ((long) segment << 32) | offset;
+    }
+
+    private static int segment(long position) {
+        return (int) (position >>> 32);
+    }
+
+    private static int offset(long position) {
+        return (int) position;
+    }
+
+    private static String newClientRef(LocalDateTime time) {
+        return time.format(REF_FORMAT) + "-" + String.format("%06x", ThreadLocalRandom.current().nextInt(1 << 24));
+    }
+
+    // ==================== ENCODING ====================
+
+    private static byte[] encode(Transaction transaction, long appendedAt) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(appendedAt);
+            out.writeUTF(transaction.getClientRef());
+            out.writeInt(transaction.getId());
+            out.writeInt(transaction.getUserId());
+            out.writeUTF(transaction.getTransactionDate().toString());
+            out.writeUTF(transaction.getSubtotal().toString());
+            out.writeUTF(transaction.getDiscountPercent().toPlainString());
+            out.writeUTF(transaction.getDiscountAmount().toString());
+            out.writeUTF(transaction.getTotal().toString());
+            out.writeUTF(transaction.getPayment().toString());
+            out.writeUTF(transaction.getChangeAmount().toString());
+            out.writeInt(transaction.getItems().size());
+            for (TransactionItem item : transaction.getItems()) {
+                out.writeInt(item.getProductId());
+                out.writeUTF(item.getProductName());
+                out.writeInt(item.getQuantity());
+                out.writeUTF(item.getPrice().toString());
+                out.writeUTF(item.getSubtotal().toString());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Wall-clock time the record was appended, without decoding the sale
+     */
+    private static long appendedAt(byte[] payload) {
+        return ByteBuffer.wrap(payload, 1, Long.BYTES).getLong();
+    }
+
+    private Transaction decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int version = in.readByte();
+            if (version < 1 || version > FORMAT_VERSION) {
+                throw new IOException("Unknown journal record version " + version);
+            }
+            in.readLong(); // appendedAt
+
+            Transaction transaction = new Transaction();
+            transaction.setClientRef(in.readUTF());
+            if (version >= 2) {
+                transaction.setId(in.readInt());
+            }
+            transaction.setUserId(in.readInt());
+            transaction.setTransactionDate(LocalDateTime.parse(in.readUTF()));
+            Money subtotal = Money.of(new BigDecimal(in.readUTF()));
+            BigDecimal discountPercent = new BigDecimal(in.readUTF());
+            Money discountAmount = Money.of(new BigDecimal(in.readUTF()));
+            Money total = Money.of(new BigDecimal(in.readUTF()));
+            Money payment = Money.of(new BigDecimal(in.readUTF()));
+            Money change = Money.of(new BigDecimal(in.readUTF()));
+
+            List<TransactionItem> items = new ArrayList<>();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                TransactionItem item = new TransactionItem();
+                item.setProductId(in.readInt());
+                item.setProductName(in.readUTF());
+                item.setQuantity(in.readInt());
+                item.setPrice(Money.of(new BigDecimal(in.readUTF())));
+                item.setSubtotal(Money.of(new BigDecimal(in.readUTF())));
+                items.add(item);
+            }
+            transaction.setItems(items);
+            transaction.setDiscountPercent(discountPercent);
+            transaction.setPayment(payment);
+
+            // Amounts exactly as they were at checkout, not recalculated
+            transaction.setSubtotal(subtotal);
+            transaction.setDiscountAmount(discountAmount);
+            transaction.setTotal(total);
+            transaction.setChangeAmount(change);
+            return transaction;
+        }
+    }
+
+    // ==================== METRICS ====================
+
+    public long getAppendedCount() {
+        return appended.sum();
+    }
+
+    public long getReplayedCount() {
+        return replayed.sum();
+    }
+
+    /**
+     * Journaled sales not yet in MySQL
+     */
+    public long getPendingCount() {
+        return pending.sum();
+    }
+
+    /**
+     * Age of the oldest sale not yet in MySQL, 0 when fully synced
+     */
+    public long getSyncLagMillis() {
+        long since = oldestPendingAt;
+        return since == 0 || pending.sum() == 0 ? 0 : System.currentTimeMillis() - since;
+    }
+
+    public long getReplayErrorCount() {
+        return replayErrors.sum();
+    }
+
+    /**
+     * Sales the database rejected, kept in the dead-letter file
+     */
+    public long getDeadLetterCount() {
+        return deadLettered.sum();
+    }
+
+    /**
+     * Checkout time including the wait for the disk flush, in microseconds
+     */
+    public Histogram getAppendLatency() {
+        return appendLatency;
+    }
+
+    /**
+     * Time per force() of the mapped segment, in microseconds
+     */
+    public Histogram getFlushLatency() {
+        return flushLatency;
+    }
+
+    /**
+     * Sales made durable by one force()
+     */
+    public Histogram getFlushBatchSize() {
+        return flushBatchSize;
+    }
+
+    /**
+     * Sales written to MySQL by one replay commit
+     */
+    public Histogram getReplayBatchSize() {
+        return replayBatchSize;
+    }
+
+    public String getStatsSummary() {
+        return String.format("journal appended=%d replayed=%d pending=%d lag=%dms replay-errors=%d dead-letter=%d%n"
+                        + "  append: %s%n"
+                        + "  flush: %s%n"
+                        + "  flush batch: %s%n"
+                        + "  replay: %s%n"
+                        + "  replay batch: %s",
+                getAppendedCount(), getReplayedCount(), getPendingCount(), getSyncLagMillis(), getReplayErrorCount(),
+                getDeadLetterCount(),
+                appendLatency.describe("us"), flushLatency.describe("us"),
+                flushBatchSize.describe("sales"), replayLatency.describe("us"),
+                replayBatchSize.describe("sales"));
+    }
+}
@@ -0,0 +1,427 @@
+package com.itsazni.kasir.hm.dao;
+
+import com.itsazni.kasir.hm.utils.Histogram;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded JDBC connection pool.
+ *
+ * Idle connections are reused LIFO so the warmest socket is handed out first.
+ * A housekeeping thread retires connections past their idle timeout or max
+ * lifetime and reports connections that have been borrowed for too long.
+ */
+public class ConnectionPool {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long VALIDATE_AFTER_IDLE_MS = 500;
+    private static final long HOUSEKEEPING_INTERVAL_MS = 30_000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final int minIdle;
+    private final long connectionTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long maxLifetimeMs;
+    private final long leakDetectionMs;
+    private final int statementCacheSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final List<PooledConnection> all = new ArrayList<>();
+    private int pending;
+    private boolean shutdown;
+
+    private final ScheduledExecutorService housekeeper;
+
+    // Metrics
+    private final Histogram borrowLatency = new Histogram();
+    private final Histogram waitTime = new Histogram();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong retired = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+    private final LongAdder statementEvictions = new LongAdder();
+
+    public ConnectionPool(String url, String user, String password, int maxSize, int minIdle,
+                          long connectionTimeoutMs, long idleTimeoutMs, long maxLifetimeMs,
+                          long leakDetectionMs, int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = Math.min(Math.max(minIdle, 0), maxSize);
+        this.connectionTimeoutMs = connectionTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.maxLifetimeMs = maxLifetimeMs;
+        this.leakDetectionMs = leakDetectionMs;
+        this.statementCacheSize = statementCacheSize;
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep,
+                HOUSEKEEPING_INTERVAL_MS, HOUSEKEEPING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection, waiting up to the connection timeout if the pool is exhausted.
+     * Closing the returned connection gives it back to the pool.
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(connectionTimeoutMs);
+
+        while (true) {
+            PooledConnection candidate = null;
+            boolean mayCreate = false;
+
+            lock.lock();
+            try {
+                if (shutdown) {
+                    throw new SQLException("Connection pool has been shut down");
+                }
+                candidate = idle.pollFirst();
+                if (candidate == null) {
+                    if (all.size() + pending < maxSize) {
+                        pending++;
+                        mayCreate = true;
+                    } else {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            timeouts.incrementAndGet();
+                            throw new SQLException("Connection pool exhausted: no connection available after "
+                                    + connectionTimeoutMs + " ms (max " + maxSize + ")");
+                        }
+                        long waitStart = System.nanoTime();
+                        try {
+                            available.awaitNanos(remaining);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new SQLException("Interrupted while waiting for a connection", e);
+                        } finally {
+                            waitTime.recordSince(waitStart);
+                        }
+                        continue;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (mayCreate) {
+                candidate = createConnection();
+            } else if (!isUsable(candidate)) {
+                retire(candidate);
+                continue;
+            }
+
+            Connection conn = candidate.borrow(leakDetectionMs > 0);
+            borrowLatency.recordSince(start);
+            return conn;
+        }
+    }
+
+    /**
+     * Return a connection to the pool (called from the proxy's close())
+     */
+    void release(PooledConnection pc) {
+        boolean healthy;
+        try {
+            pc.reset();
+            healthy = !isExpired(pc, System.currentTimeMillis());
+        } catch (SQLException e) {
+            System.err.println("Discarding broken connection: " + e.getMessage());
+            healthy = false;
+        }
+        pc.markReturned();
+
+        if (!healthy) {
+            retire(pc);
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (shutdown) {
+                all.remove(pc);
+                pc.closePhysical();
+                return;
+            }
+            idle.addFirst(pc);
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Close every connection and stop the housekeeping thread
+     */
+    public void shutdown() {
+        housekeeper.shutdownNow();
+        lock.lock();
+        try {
+            shutdown = true;
+            for (PooledConnection pc : idle) {
+                all.remove(pc);
+                pc.closePhysical();
+            }
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        try {
+            Connection physical = DriverManager.getConnection(url, user, password);
+            PooledConnection pc = new PooledConnection(this, physical, statementCacheSize);
+            created.incrementAndGet();
+            lock.lock();
+            try {
+                pending--;
+                all.add(pc);
+            } finally {
+                lock.unlock();
+            }
+            return pc;
+        } catch (SQLException e) {
+            lock.lock();
+            try {
+                pending--;
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        long now = System.currentTimeMillis();
+        if (isExpired(pc, now)) {
+            return false;
+        }
+        // Skip the round trip for connections that were in use a moment ago
+        if (now - pc.getLastReturnedAt() < VALIDATE_AFTER_IDLE_MS) {
+            return true;
+        }
+        return pc.isValid(VALIDATION_TIMEOUT_SECONDS);
+    }
+
+    private boolean isExpired(PooledConnection pc, long now) {
+        return maxLifetimeMs > 0 && now - pc.getCreatedAt() > maxLifetimeMs;
+    }
+
+    private void retire(PooledConnection pc) {
+        pc.closePhysical();
+        retired.incrementAndGet();
+        lock.lock();
+        try {
+            all.remove(pc);
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        List<PooledConnection> toRetire = new ArrayList<>();
+
+        lock.lock();
+        try {
+            int idleCount = idle.size();
+            for (PooledConnection pc : new ArrayList<>(idle)) {
+                boolean idleTooLong = idleTimeoutMs > 0 && now - pc.getLastReturnedAt() > idleTimeoutMs;
+                if (isExpired(pc, now) || (idleTooLong && idleCount > minIdle)) {
+                    idle.remove(pc);
+                    toRetire.add(pc);
+                    idleCount--;
+                }
+            }
+
+            if (leakDetectionMs > 0) {
+                for (PooledConnection pc : all) {
+                    if (pc.isBorrowed() && !pc.isLeakReported() && now - pc.getBorrowedAt() > leakDetectionMs) {
+                        pc.setLeakReported(true);
+                        leaks.incrementAndGet();
+                        System.err.println("Possible connection leak: borrowed for "
+                                + (now - pc.getBorrowedAt()) + " ms");
+                        Throwable site = pc.getBorrowSite();
+                        if (site != null) {
+                            site.printStackTrace();
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (PooledConnection pc : toRetire) {
+            retire(pc);
+        }
+        fillToMinIdle();
+    }
+
+    /**
+     * Open connections in the background until minIdle are available
+     */
+    void fillToMinIdle() {
+        while (true) {
+            lock.lock();
+            try {
+                if (shutdown || idle.size() >= minIdle || all.size() + pending >= maxSize) {
+                    return;
+                }
+                pending++;
+            } finally {
+                lock.unlock();
+            }
+
+            PooledConnection pc;
+            try {
+                pc = createConnection();
+            } catch (SQLException e) {
+                System.err.println("Could not pre-open pooled connection: " + e.getMessage());
+                return;
+            }
+            lock.lock();
+            try {
+                idle.addLast(pc);
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Metrics
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getTotalConnections() {
+        lock.lock();
+        try {
+            return all.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getIdleConnections() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActiveConnections() {
+        lock.lock();
+        try {
+            return all.size() - idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Time from getConnection() call to handing out a connection, in microseconds
+     */
+    public Histogram getBorrowLatency() {
+        return borrowLatency;
+    }
+
+    /**
+     * Time spent blocked waiting for a free connection, in microseconds
+     */
+    public Histogram getWaitTime() {
+        return waitTime;
+    }
+
+    public long getCreatedCount() {
+        return created.get();
+    }
+
+    public long getRetiredCount() {
+        return retired.get();
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.get();
+    }
+
+    public long getLeakCount() {
+        return leaks.get();
+    }
+
+    void recordStatementCacheHit() {
+        statementHits.increment();
+    }
+
+    void recordStatementCacheMiss() {
+        statementMisses.increment();
+    }
+
+    void recordStatementCacheEviction() {
+        statementEvictions.increment();
+    }
+
+    public long getStatementCacheHits() {
+        return statementHits.sum();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementMisses.sum();
+    }
+
+    public long getStatementCacheEvictions() {
+        return statementEvictions.sum();
+    }
+
+    public double getStatementCacheHitRate() {
+        long hits = statementHits.sum();
+        long total = hits + statementMisses.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public String getStatsSummary() {
+        return String.format("pool total=%d active=%d idle=%d max=%d created=%d retired=%d timeouts=%d leaks=%d%n"
+                        + "  borrow: %s%n  wait:   %s%n"
+                        + "  statement cache hits=%d misses=%d evictions=%d hit-rate=%.1f%%",
+                getTotalConnections(), getActiveConnections(), getIdleConnections(), maxSize,
+                getCreatedCount(), getRetiredCount(), getTimeoutCount(), getLeakCount(),
+                borrowLatency.describe("us"), waitTime.describe("us"),
+                getStatementCacheHits(), getStatementCacheMisses(), getStatementCacheEvictions(),
+                getStatementCacheHitRate() * 100);
+    }
+}
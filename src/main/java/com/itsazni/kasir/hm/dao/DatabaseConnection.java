@@ -2,15 +2,14 @@ package com.itsazni.kasir.hm.dao;
 
 import com.itsazni.kasir.hm.utils.AppConfig;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class DatabaseConnection {
-    
+
     private static DatabaseConnection instance;
-    private Connection connection;
+    private final ConnectionPool pool;
     private final AppConfig config;
-    
+
     private DatabaseConnection() {
         config = AppConfig.getInstance();
         try {
@@ -18,40 +17,57 @@ public class DatabaseConnection {
         } catch (ClassNotFoundException e) {
             System.err.println("MySQL Driver not found: " + e.getMessage());
         }
+        pool = new ConnectionPool(
+            config.getDbUrl(),
+            config.getDbUser(),
+            config.getDbPassword(),
+            config.getPoolMaxSize(),
+            config.getPoolMinIdle(),
+            config.getPoolConnectionTimeoutMs(),
+            config.getPoolIdleTimeoutMs(),
+            config.getPoolMaxLifetimeMs(),
+            config.getPoolLeakDetectionMs(),
+            config.getStatementCacheSize()
+        );
     }
-    
+
     public static synchronized DatabaseConnection getInstance() {
         if (instance == null) {
             instance = new DatabaseConnection();
         }
         return instance;
     }
-    
+
+    /**
+     * The instance if it was created already, otherwise null
+     */
+    public static synchronized DatabaseConnection getExistingInstance() {
+        return instance;
+    }
+
+    /**
+     * Borrow a pooled connection. Callers must close it (try-with-resources)
+     * to hand it back to the pool.
+     */
     public Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            connection = DriverManager.getConnection(
-                config.getDbUrl(), 
-                config.getDbUser(), 
-                config.getDbPassword()
-            );
-        }
-        return connection;
+        return pool.getConnection();
     }
-    
+
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
     public void closeConnection() {
-        if (connection != null) {
-            try {
-                connection.close();
-            } catch (SQLException e) {
-                System.err.println("Error closing connection: " + e.getMessage());
-            }
-        }
+        pool.shutdown();
     }
-    
+
     public boolean testConnection() {
-        try {
-            Connection conn = getConnection();
-            return conn != null && !conn.isClosed();
+        try (Connection conn = getConnection()) {
+            boolean valid = conn.isValid(5);
+            if (valid) {
+                pool.fillToMinIdle();
+            }
+            return valid;
         } catch (SQLException e) {
             System.err.println("Database connection failed: " + e.getMessage());
             return false;
@@ -0,0 +1,181 @@
+package com.itsazni.kasir.hm.dao;
+
+import com.itsazni.kasir.hm.models.Transaction;
+import com.itsazni.kasir.hm.utils.AppConfig;
+import com.itsazni.kasir.hm.utils.Histogram;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Queues completed sales and writes them to MySQL in micro-batches, one
+ * database transaction per batch, so that concurrent checkouts share a
+ * single commit and redo-log flush.
+ *
+ * A batch is closed when it reaches maxBatch sales or maxDelayMs after its
+ * first sale was queued, whichever comes first. If a batch fails, its sales
+ * are retried one by one so one bad sale cannot fail the others.
+ */
+public class GroupCommitWriter {
+
+    private static GroupCommitWriter instance;
+
+    private final TransactionDAO transactionDAO;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>(1024);
+
+    // Metrics
+    private final Histogram batchSize = new Histogram();
+    private final Histogram commitLatency = new Histogram();
+    private final Histogram queueWait = new Histogram();
+    private final LongAdder batchFailures = new LongAdder();
+
+    private GroupCommitWriter() {
+        AppConfig config = AppConfig.getInstance();
+        this.transactionDAO = new TransactionDAO();
+        this.maxBatch = Math.max(1, config.getGroupCommitMaxBatch());
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(config.getGroupCommitMaxDelayMs());
+
+        Thread writer = new Thread(this::writeLoop, "group-commit");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static synchronized GroupCommitWriter getInstance() {
+        if (instance == null) {
+            instance = new GroupCommitWriter();
+        }
+        return instance;
+    }
+
+    /**
+     * The instance if it was created already, otherwise null
+     */
+    public static synchronized GroupCommitWriter getExistingInstance() {
+        return instance;
+    }
+
+    /**
+     * Queue a sale; the future completes with true once it is committed, or
+     * with an InsufficientStockException if the sale would oversell. Falls
+     * back to a direct save when the queue is full.
+     */
+    CompletableFuture<Boolean> submit(Transaction transaction) {
+        Pending pending = new Pending(transaction);
+        if (!queue.offer(pending)) {
+            saveDirect(pending);
+        }
+        return pending.result;
+    }
+
+    private void saveDirect(Pending pending) {
+        try {
+            pending.result.complete(transactionDAO.saveDirect(pending.transaction));
+        } catch (InsufficientStockException e) {
+            pending.result.completeExceptionally(e);
+        }
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            try {
+                Pending first = queue.take();
+                batch.add(first);
+                long deadline = first.queuedAt + maxDelayNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("Error in group commit: " + e.getMessage());
+                for (Pending pending : batch) {
+                    pending.result.complete(false);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<Pending> batch) {
+        List<Transaction> sales = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            sales.add(pending.transaction);
+            queueWait.recordSince(pending.queuedAt);
+        }
+
+        long start = System.nanoTime();
+        try {
+            transactionDAO.saveAll(sales);
+            commitLatency.recordSince(start);
+            batchSize.record(batch.size());
+            for (Pending pending : batch) {
+                pending.result.complete(true);
+            }
+        } catch (SQLException e) {
+            batchFailures.increment();
+            System.err.println("Error saving batch of " + batch.size() + " transactions, retrying one by one: "
+                    + e.getMessage());
+            for (Pending pending : batch) {
+                saveDirect(pending);
+            }
+        }
+    }
+
+    // Metrics
+
+    /**
+     * Sales per committed batch
+     */
+    public Histogram getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Time to write and commit one batch, in microseconds
+     */
+    public Histogram getCommitLatency() {
+        return commitLatency;
+    }
+
+    /**
+     * Time a sale waited in the queue, in microseconds
+     */
+    public Histogram getQueueWait() {
+        return queueWait;
+    }
+
+    public String getStatsSummary() {
+        return String.format("group commit batches=%d failed-batches=%d%n"
+                        + "  batch size: %s%n"
+                        + "  commit: %s%n"
+                        + "  queue wait: %s",
+                batchSize.getCount(), batchFailures.sum(),
+                batchSize.describe("sales"), commitLatency.describe("us"), queueWait.describe("us"));
+    }
+
+    private static class Pending {
+        final Transaction transaction;
+        final long queuedAt = System.nanoTime();
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        Pending(Transaction transaction) {
+            this.transaction = transaction;
+        }
+    }
+}
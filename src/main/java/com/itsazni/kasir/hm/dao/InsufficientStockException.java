@@ -0,0 +1,47 @@
+package com.itsazni.kasir.hm.dao;
+
+import com.itsazni.kasir.hm.models.TransactionItem;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thrown when a sale would take one or more products below zero stock.
+ * The sale is rolled back; the short lines and their stock are reported.
+ */
+public class InsufficientStockException extends SQLException {
+
+    private final List<TransactionItem> shortItems;
+    private final Map<Integer, Integer> available;
+
+    InsufficientStockException(List<TransactionItem> shortItems, Map<Integer, Integer> available) {
+        super(describe(shortItems, available));
+        this.shortItems = Collections.unmodifiableList(shortItems);
+        this.available = Collections.unmodifiableMap(available);
+    }
+
+    /**
+     * Cart lines whose quantity exceeds the product's stock
+     */
+    public List<TransactionItem> getShortItems() {
+        return shortItems;
+    }
+
+    /**
+     * Stock of a short line's product when the sale was attempted
+     */
+    public int getAvailable(int productId) {
+        return available.getOrDefault(productId, 0);
+    }
+
+    private static String describe(List<TransactionItem> shortItems, Map<Integer, Integer> available) {
+        StringBuilder message = new StringBuilder("Stok tidak cukup:");
+        for (TransactionItem item : shortItems) {
+            message.append(' ').append(item.getProductName())
+                    .append(" (diminta ").append(item.getQuantity())
+                    .append(", sisa ").append(available.getOrDefault(item.getProductId(), 0)).append(')');
+        }
+        return message.toString();
+    }
+}
@@ -0,0 +1,165 @@
+package com.itsazni.kasir.hm.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A physical connection owned by the pool. DAOs only ever see a proxy whose
+ * close() hands the connection back to the pool instead of closing the socket.
+ */
+class PooledConnection implements InvocationHandler {
+
+    private final ConnectionPool pool;
+    private final Connection physical;
+    private final long createdAt;
+    private final List<Statement> openStatements = new ArrayList<>();
+    private final StatementCache statementCache;
+
+    private Connection proxy;
+    private volatile boolean borrowed;
+    private volatile long borrowedAt;
+    private volatile long lastReturnedAt;
+    private volatile Throwable borrowSite;
+    private volatile boolean leakReported;
+
+    PooledConnection(ConnectionPool pool, Connection physical, int statementCacheSize) {
+        this.pool = pool;
+        this.physical = physical;
+        this.statementCache = new StatementCache(physical, statementCacheSize, pool);
+        this.createdAt = System.currentTimeMillis();
+        this.lastReturnedAt = createdAt;
+    }
+
+    /**
+     * Mark as borrowed and hand out a fresh proxy
+     */
+    Connection borrow(boolean captureSite) {
+        borrowed = true;
+        borrowedAt = System.currentTimeMillis();
+        borrowSite = captureSite ? new Throwable("Connection borrowed here") : null;
+        leakReported = false;
+        proxy = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                this);
+        return proxy;
+    }
+
+    /**
+     * Reset session state so the next borrower gets a clean connection
+     */
+    void reset() throws SQLException {
+        closeOpenStatements();
+        if (!physical.getAutoCommit()) {
+            physical.rollback();
+            physical.setAutoCommit(true);
+        }
+        physical.clearWarnings();
+    }
+
+    void markReturned() {
+        borrowed = false;
+        borrowSite = null;
+        proxy = null;
+        lastReturnedAt = System.currentTimeMillis();
+    }
+
+    boolean isValid(int timeoutSeconds) {
+        try {
+            return physical.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void closePhysical() {
+        closeOpenStatements();
+        statementCache.clear();
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    Connection getPhysical() { return physical; }
+    long getCreatedAt() { return createdAt; }
+    long getBorrowedAt() { return borrowedAt; }
+    long getLastReturnedAt() { return lastReturnedAt; }
+    boolean isBorrowed() { return borrowed; }
+    Throwable getBorrowSite() { return borrowSite; }
+    boolean isLeakReported() { return leakReported; }
+    void setLeakReported(boolean leakReported) { this.leakReported = leakReported; }
+
+    /**
+     * Only prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) are cached;
+     * variants with cursor options are used rarely and prepared directly.
+     */
+    private static boolean isCacheable(Method method) {
+        Class<?>[] params = method.getParameterTypes();
+        return params.length == 1 || (params.length == 2 && params[1] == int.class);
+    }
+
+    private void closeOpenStatements() {
+        for (Statement stmt : openStatements) {
+            try {
+                stmt.close();
+            } catch (SQLException ignored) {
+                // Statement is discarded either way
+            }
+        }
+        openStatements.clear();
+    }
+
+    @Override
+    public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+
+        switch (name) {
+            case "close":
+                if (target == proxy) {
+                    pool.release(this);
+                }
+                return null;
+            case "isClosed":
+                return target != proxy || physical.isClosed();
+            case "equals":
+                return target == args[0];
+            case "hashCode":
+                return System.identityHashCode(target);
+            case "toString":
+                return "PooledConnection[" + physical + "]";
+            default:
+                break;
+        }
+
+        if (target != proxy) {
+            throw new SQLException("Connection has already been returned to the pool");
+        }
+
+        if (name.equals("prepareStatement") && isCacheable(method)) {
+            int keys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+            PreparedStatement stmt = statementCache.prepare((String) args[0], keys);
+            openStatements.add(stmt);
+            return stmt;
+        }
+
+        try {
+            Object result = method.invoke(physical, args);
+            if (result instanceof Statement) {
+                openStatements.add((Statement) result);
+            }
+            return result;
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.itsazni.kasir.hm.dao;
+
+import com.itsazni.kasir.hm.models.Product;
+import com.itsazni.kasir.hm.utils.AppConfig;
+import com.itsazni.kasir.hm.utils.Histogram;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory copy of the products table with hash indexes by id and barcode.
+ *
+ * The whole catalog is loaded once, at startup through load(), then kept
+ * fresh from products.updated_at by a background thread. Lookups by id or
+ * barcode made before it is loaded return null at once instead of waiting,
+ * so callers such as ProductDAO fall back to the database, and start the
+ * load in the background if it has not run or has failed. Writes made through ProductDAO and TransactionDAO
+ * are applied immediately. Stored Product instances are never mutated; every
+ * change replaces the entry, and callers always receive a copy.
+ *
+ * Readers take no lock. A full reload fills new indexes and then publishes
+ * them in one volatile write, so a reader never sees a half-loaded catalog.
+ */
+public class ProductCatalog {
+
+    private static ProductCatalog instance;
+
+    private final DatabaseConnection dbConnection;
+    private volatile Indexes indexes = new Indexes();
+    private final long refreshIntervalMs;
+
+    private volatile boolean loaded;
+    private final AtomicBoolean loadStarted = new AtomicBoolean();
+    private Timestamp highWaterMark;
+    private ScheduledExecutorService refresher;
+
+    // Metrics
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private volatile long lastRefreshMillis;
+    private final Histogram searchLatency = new Histogram();
+
+    private ProductCatalog() {
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.refreshIntervalMs = AppConfig.getInstance().getLongProperty("catalog.refreshMs", 15_000);
+    }
+
+    public static synchronized ProductCatalog getInstance() {
+        if (instance == null) {
+            instance = new ProductCatalog();
+        }
+        return instance;
+    }
+
+    /**
+     * The instance if it was created already, otherwise null
+     */
+    public static synchronized ProductCatalog getExistingInstance() {
+        return instance;
+    }
+
+    /**
+     * Load the whole catalog now unless it is loaded already. Blocks, so
+     * call it off the EDT, e.g. from the startup worker.
+     */
+    public void load() {
+        loadStarted.set(true);
+        ensureLoaded();
+    }
+
+    /**
+     * Find product by ID, or null when it is not cached or not loaded yet
+     */
+    public Product findById(int id) {
+        if (!loaded) {
+            loadInBackground();
+            return null;
+        }
+        return lookup(indexes.byId.get(id));
+    }
+
+    /**
+     * Find product by barcode, or null when it is not cached or not loaded yet
+     */
+    public Product findByBarcode(String barcode) {
+        if (barcode == null) return null;
+        if (!loaded) {
+            loadInBackground();
+            return null;
+        }
+        return lookup(indexes.byBarcode.get(barcode));
+    }
+
+    /**
+     * Products whose name or barcode contains keyword, best matches first
+     */
+    public List<Product> search(String keyword, int limit) {
+        ensureLoaded();
+        long start = System.nanoTime();
+        List<Product> products = new ArrayList<>();
+        for (Product p : indexes.searchIndex.search(keyword, limit)) {
+            products.add(new Product(p));
+        }
+        searchLatency.recordSince(start);
+        return products;
+    }
+
+    /**
+     * Copies of all cached products sorted by name
+     */
+    public List<Product> findAll() {
+        ensureLoaded();
+        Map<Integer, Product> byId = indexes.byId;
+        List<Product> products = new ArrayList<>(byId.size());
+        for (Product p : byId.values()) {
+            products.add(new Product(p));
+        }
+        products.sort(Comparator.comparing(Product::getName, String.CASE_INSENSITIVE_ORDER));
+        return products;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Insert or replace a product after it was written to the database
+     */
+    public synchronized void put(Product product) {
+        if (!loaded || product == null) return;
+        store(indexes, new Product(product));
+    }
+
+    /**
+     * Drop a product after it was deleted from the database
+     */
+    public synchronized void remove(int id) {
+        Indexes current = indexes;
+        Product old = current.byId.remove(id);
+        if (old != null && old.getBarcode() != null) {
+            current.byBarcode.remove(old.getBarcode(), old);
+        }
+        current.searchIndex.remove(id);
+    }
+
+    /**
+     * Apply a stock change that was already committed to the database
+     */
+    public synchronized void adjustStock(int id, int delta) {
+        Product current = indexes.byId.get(id);
+        if (current == null) return;
+        Product updated = new Product(current);
+        updated.setStock(current.getStock() + delta);
+        store(indexes, updated);
+    }
+
+    /**
+     * Pull rows changed since the last refresh. Falls back to a full reload
+     * when rows were deleted elsewhere (row count no longer matches).
+     */
+    public void refresh() {
+        if (!loaded) {
+            ensureLoaded();
+            return;
+        }
+        long start = System.currentTimeMillis();
+        String sql = "SELECT * FROM products WHERE updated_at >= ?";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            Timestamp since;
+            synchronized (this) {
+                since = highWaterMark != null ? highWaterMark : new Timestamp(0);
+            }
+            stmt.setTimestamp(1, since);
+            ResultSet rs = stmt.executeQuery();
+
+            synchronized (this) {
+                while (rs.next()) {
+                    store(indexes, ProductDAO.mapResultSetToProduct(rs));
+                }
+            }
+
+            if (countRows(conn) != size()) {
+                reload(conn);
+            }
+            refreshes.increment();
+            lastRefreshMillis = System.currentTimeMillis() - start;
+        } catch (SQLException e) {
+            System.err.println("Error refreshing product catalog: " + e.getMessage());
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+            try (Connection conn = dbConnection.getConnection()) {
+                reload(conn);
+                loaded = true;
+                startRefresher();
+            } catch (SQLException e) {
+                System.err.println("Error loading product catalog: " + e.getMessage());
+                // Let the next lookup try again
+                loadStarted.set(false);
+            }
+        }
+    }
+
+    /**
+     * Start the first load on its own thread unless one has been started
+     */
+    private void loadInBackground() {
+        if (!loadStarted.compareAndSet(false, true)) return;
+        Thread loader = new Thread(this::ensureLoaded, "product-catalog-load");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private synchronized void reload(Connection conn) throws SQLException {
+        String sql = "SELECT * FROM products";
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            Indexes fresh = new Indexes();
+            highWaterMark = null;
+            while (rs.next()) {
+                store(fresh, ProductDAO.mapResultSetToProduct(rs));
+            }
+            indexes = fresh;
+        }
+    }
+
+    private int countRows(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM products")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Replace the entry for product.getId() in target, keeping the barcode
+     * index in step. Caller must hold the monitor.
+     */
+    private void store(Indexes target, Product product) {
+        Product old = target.byId.put(product.getId(), product);
+        if (old != null && old.getBarcode() != null) {
+            target.byBarcode.remove(old.getBarcode(), old);
+        }
+        if (product.getBarcode() != null && !product.getBarcode().isEmpty()) {
+            target.byBarcode.put(product.getBarcode(), product);
+        }
+        target.searchIndex.put(product);
+        if (product.getUpdatedAt() != null) {
+            Timestamp updatedAt = Timestamp.valueOf(product.getUpdatedAt());
+            if (highWaterMark == null || updatedAt.after(highWaterMark)) {
+                highWaterMark = updatedAt;
+            }
+        }
+    }
+
+    private Product lookup(Product cached) {
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new Product(cached);
+    }
+
+    private void startRefresher() {
+        if (refresher != null || refreshIntervalMs <= 0) return;
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "product-catalog-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh,
+                refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Metrics
+
+    public int size() {
+        return indexes.byId.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public long getRefreshCount() {
+        return refreshes.sum();
+    }
+
+    public long getLastRefreshMillis() {
+        return lastRefreshMillis;
+    }
+
+    /**
+     * In-memory search time in microseconds
+     */
+    public Histogram getSearchLatency() {
+        return searchLatency;
+    }
+
+    public String getStatsSummary() {
+        return String.format("catalog size=%d hits=%d misses=%d hit-rate=%.1f%% refreshes=%d last-refresh=%dms%n"
+                        + "  search: %s",
+                size(), getHits(), getMisses(), getHitRate() * 100, getRefreshCount(), getLastRefreshMillis(),
+                searchLatency.describe("us"));
+    }
+
+    /**
+     * The lookup structures, replaced as a whole by a full reload
+     */
+    private static class Indexes {
+        final Map<Integer, Product> byId = new ConcurrentHashMap<>();
+        final Map<String, Product> byBarcode = new ConcurrentHashMap<>();
+        final ProductSearchIndex searchIndex = new ProductSearchIndex();
+    }
+}
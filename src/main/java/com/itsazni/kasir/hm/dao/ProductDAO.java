@@ -1,6 +1,8 @@
 package com.itsazni.kasir.hm.dao;
 
+import com.itsazni.kasir.hm.models.Money;
 import com.itsazni.kasir.hm.models.Product;
+import com.itsazni.kasir.hm.utils.AppConfig;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -11,15 +13,23 @@ import java.util.List;
 public class ProductDAO {
     
     private final DatabaseConnection dbConnection;
+    private final ProductCatalog catalog;
+    private final int searchLimit;
     
     public ProductDAO() {
         this.dbConnection = DatabaseConnection.getInstance();
+        this.catalog = ProductCatalog.getInstance();
+        this.searchLimit = AppConfig.getInstance().getIntProperty("search.limit", 200);
     }
     
     /**
      * Get all products
      */
     public List<Product> findAll() {
+        if (catalog.isLoaded()) {
+            return catalog.findAll();
+        }
+        
         List<Product> products = new ArrayList<>();
         String sql = "SELECT * FROM products ORDER BY name";
         
@@ -40,6 +50,11 @@ public class ProductDAO {
      * Find product by ID
      */
     public Product findById(int id) {
+        Product cached = catalog.findById(id);
+        if (cached != null) {
+            return cached;
+        }
+        
         String sql = "SELECT * FROM products WHERE id = ?";
         
         try (Connection conn = dbConnection.getConnection();
@@ -49,7 +64,9 @@ public class ProductDAO {
             ResultSet rs = stmt.executeQuery();
             
             if (rs.next()) {
-                return mapResultSetToProduct(rs);
+                Product product = mapResultSetToProduct(rs);
+                catalog.put(product);
+                return product;
             }
         } catch (SQLException e) {
             System.err.println("Error finding product: " + e.getMessage());
@@ -61,6 +78,11 @@ public class ProductDAO {
      * Find product by barcode
      */
     public Product findByBarcode(String barcode) {
+        Product cached = catalog.findByBarcode(barcode);
+        if (cached != null) {
+            return cached;
+        }
+        
         String sql = "SELECT * FROM products WHERE barcode = ?";
         
         try (Connection conn = dbConnection.getConnection();
@@ -70,7 +92,9 @@ public class ProductDAO {
             ResultSet rs = stmt.executeQuery();
             
             if (rs.next()) {
-                return mapResultSetToProduct(rs);
+                Product product = mapResultSetToProduct(rs);
+                catalog.put(product);
+                return product;
             }
         } catch (SQLException e) {
             System.err.println("Error finding product by barcode: " + e.getMessage());
@@ -79,9 +103,13 @@ public class ProductDAO {
     }
     
     /**
-     * Search products by name or barcode
+     * Search products by name or barcode, best matches first
      */
     public List<Product> search(String keyword) {
+        if (catalog.isLoaded()) {
+            return catalog.search(keyword, searchLimit);
+        }
+        
         List<Product> products = new ArrayList<>();
         String sql = "SELECT * FROM products WHERE name LIKE ? OR barcode LIKE ? ORDER BY name";
         
@@ -176,7 +204,7 @@ public class ProductDAO {
             stmt.setString(1, product.getBarcode());
             stmt.setString(2, product.getName());
             stmt.setString(3, product.getCategory());
-            stmt.setBigDecimal(4, product.getPrice());
+            stmt.setBigDecimal(4, product.getPrice().toBigDecimal());
             stmt.setInt(5, product.getStock());
             stmt.setInt(6, product.getMinStock());
             
@@ -186,6 +214,7 @@ public class ProductDAO {
                 if (keys.next()) {
                     product.setId(keys.getInt(1));
                 }
+                catalog.put(product);
                 return true;
             }
         } catch (SQLException e) {
@@ -206,12 +235,15 @@ public class ProductDAO {
             stmt.setString(1, product.getBarcode());
             stmt.setString(2, product.getName());
             stmt.setString(3, product.getCategory());
-            stmt.setBigDecimal(4, product.getPrice());
+            stmt.setBigDecimal(4, product.getPrice().toBigDecimal());
             stmt.setInt(5, product.getStock());
             stmt.setInt(6, product.getMinStock());
             stmt.setInt(7, product.getId());
             
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() > 0) {
+                catalog.put(product);
+                return true;
+            }
         } catch (SQLException e) {
             System.err.println("Error updating product: " + e.getMessage());
         }
@@ -231,7 +263,10 @@ public class ProductDAO {
             stmt.setInt(2, productId);
             stmt.setInt(3, quantity);
             
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() > 0) {
+                catalog.adjustStock(productId, -quantity);
+                return true;
+            }
         } catch (SQLException e) {
             System.err.println("Error updating stock: " + e.getMessage());
         }
@@ -250,7 +285,10 @@ public class ProductDAO {
             stmt.setInt(1, quantity);
             stmt.setInt(2, productId);
             
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() > 0) {
+                catalog.adjustStock(productId, quantity);
+                return true;
+            }
         } catch (SQLException e) {
             System.err.println("Error adding stock: " + e.getMessage());
         }
@@ -267,7 +305,10 @@ public class ProductDAO {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, id);
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() > 0) {
+                catalog.remove(id);
+                return true;
+            }
         } catch (SQLException e) {
             System.err.println("Error deleting product: " + e.getMessage());
         }
@@ -299,13 +340,13 @@ public class ProductDAO {
     /**
      * Map ResultSet to Product object
      */
-    private Product mapResultSetToProduct(ResultSet rs) throws SQLException {
+    static Product mapResultSetToProduct(ResultSet rs) throws SQLException {
         Product product = new Product();
         product.setId(rs.getInt("id"));
         product.setBarcode(rs.getString("barcode"));
         product.setName(rs.getString("name"));
         product.setCategory(rs.getString("category"));
-        product.setPrice(rs.getBigDecimal("price"));
+        product.setPrice(Money.of(rs.getBigDecimal("price")));
         product.setStock(rs.getInt("stock"));
         product.setMinStock(rs.getInt("min_stock"));
         
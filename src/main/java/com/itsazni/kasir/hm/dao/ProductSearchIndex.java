@@ -0,0 +1,316 @@
+package com.itsazni.kasir.hm.dao;
+
+import com.itsazni.kasir.hm.models.Product;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process substring index over product name and barcode.
+ *
+ * Every 1-, 2- and 3-character gram of the lower-cased name and barcode maps
+ * to a list of index entries sorted by product id. A query of up to three
+ * characters is a single posting lookup; longer queries intersect the postings of their
+ * trigrams and verify the survivors, so the result is the same set that
+ * "name LIKE %kw% OR barcode LIKE %kw%" returned, ranked and cut to top-K.
+ */
+class ProductSearchIndex {
+
+    private static final int SCORE_BARCODE_EXACT = 100;
+    private static final int SCORE_BARCODE_PREFIX = 80;
+    private static final int SCORE_NAME_PREFIX = 60;
+    private static final int SCORE_WORD_PREFIX = 40;
+    private static final int SCORE_SUBSTRING = 20;
+
+    private final Map<Long, Posting> postings = new HashMap<>();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Add or replace a product
+     */
+    void put(Product product) {
+        Entry entry = new Entry(product);
+        lock.writeLock().lock();
+        try {
+            Entry old = entries.put(product.getId(), entry);
+            if (old != null) {
+                unlink(old);
+            }
+            for (long gram : entry.grams) {
+                postings.computeIfAbsent(gram, k -> new Posting()).add(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            Entry old = entries.remove(id);
+            if (old != null) {
+                unlink(old);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unlink(Entry old) {
+        for (long gram : old.grams) {
+            Posting posting = postings.get(gram);
+            if (posting != null && posting.remove(old.id) && posting.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Best matches for keyword, highest score first, at most limit results
+     */
+    List<Product> search(String keyword, int limit) {
+        String query = normalize(keyword);
+        if (query.isEmpty() || limit <= 0) return new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            Posting[] lists = postingsFor(query);
+            if (lists == null) return new ArrayList<>();
+
+            // Walk the shortest posting list, probing the others
+            Arrays.sort(lists, Comparator.comparingInt(p -> p.size));
+            Posting shortest = lists[0];
+
+            // Min-heap of the best results so far; the worst one sits on top
+            PriorityQueue<Scored> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+            for (int i = 0; i < shortest.size; i++) {
+                Entry entry = shortest.entries[i];
+                boolean inAll = true;
+                for (int j = 1; j < lists.length && inAll; j++) {
+                    inAll = lists[j].contains(entry.id);
+                }
+                if (!inAll) continue;
+
+                int score = entry.score(query);
+                if (score == 0) continue;
+
+                if (top.size() == limit) {
+                    Scored worst = top.peek();
+                    if (compare(score, entry, worst.score, worst.entry) >= 0) continue;
+                    top.poll();
+                }
+                top.add(new Scored(entry, score));
+            }
+
+            Scored[] ranked = top.toArray(new Scored[0]);
+            Arrays.sort(ranked, RANKING);
+            List<Product> results = new ArrayList<>(ranked.length);
+            for (Scored s : ranked) {
+                results.add(s.entry.product);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Posting[] postingsFor(String query) {
+        if (query.length() <= 3) {
+            Posting posting = postings.get(gram(query, 0, query.length()));
+            return posting == null ? null : new Posting[]{posting};
+        }
+
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            grams.add(gram(query, i, 3));
+        }
+        Posting[] lists = new Posting[grams.size()];
+        int n = 0;
+        for (long g : grams) {
+            Posting posting = postings.get(g);
+            if (posting == null) return null;
+            lists[n++] = posting;
+        }
+        return lists;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Pack up to three chars plus the length into one key
+     */
+    private static long gram(String text, int start, int length) {
+        long key = length;
+        for (int i = 0; i < length; i++) {
+            key = (key << 16) | text.charAt(start + i);
+        }
+        return key;
+    }
+
+    /**
+     * Distinct grams of name and barcode, sorted
+     */
+    private static long[] gramsOf(String name, String barcode) {
+        long[] grams = new long[3 * (name.length() + barcode.length())];
+        int n = 0;
+        for (String text : new String[]{name, barcode}) {
+            for (int length = 1; length <= 3; length++) {
+                for (int i = 0; i + length <= text.length(); i++) {
+                    grams[n++] = gram(text, i, length);
+                }
+            }
+        }
+        Arrays.sort(grams, 0, n);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * Higher score first, then shorter name, then alphabetical; negative when a ranks before b
+     */
+    private static int compare(int scoreA, Entry a, int scoreB, Entry b) {
+        if (scoreA != scoreB) return scoreB - scoreA;
+        if (a.name.length() != b.name.length()) return a.name.length() - b.name.length();
+        int byName = a.name.compareTo(b.name);
+        return byName != 0 ? byName : Integer.compare(a.id, b.id);
+    }
+
+    private static final Comparator<Scored> RANKING = (x, y) -> compare(x.score, x.entry, y.score, y.entry);
+
+    /**
+     * Indexed product with its normalised fields
+     */
+    private static class Entry {
+        final int id;
+        final Product product;
+        final String name;
+        final String barcode;
+        final long[] grams;
+
+        Entry(Product product) {
+            this.id = product.getId();
+            this.product = product;
+            this.name = normalize(product.getName());
+            this.barcode = normalize(product.getBarcode());
+            this.grams = gramsOf(name, barcode);
+        }
+
+        /**
+         * Relevance of this product for query, 0 when it does not match
+         */
+        int score(String query) {
+            if (!barcode.isEmpty()) {
+                if (barcode.equals(query)) return SCORE_BARCODE_EXACT;
+                if (barcode.startsWith(query)) return SCORE_BARCODE_PREFIX;
+            }
+
+            int at = name.indexOf(query);
+            if (at == 0) return SCORE_NAME_PREFIX;
+            boolean inName = at > 0;
+            while (at > 0) {
+                // Prefer matches at the start of a word
+                if (!Character.isLetterOrDigit(name.charAt(at - 1))) return SCORE_WORD_PREFIX;
+                at = name.indexOf(query, at + 1);
+            }
+            if (inName || barcode.contains(query)) return SCORE_SUBSTRING;
+            return 0;
+        }
+    }
+
+    private static class Scored {
+        final Entry entry;
+        final int score;
+
+        Scored(Entry entry, int score) {
+            this.entry = entry;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Growable list of entries sorted by product id
+     */
+    private static class Posting {
+        Entry[] entries = new Entry[4];
+        int size;
+
+        void add(Entry entry) {
+            if (size == 0 || entries[size - 1].id < entry.id) {
+                grow();
+                entries[size++] = entry;
+                return;
+            }
+            int at = indexOf(entry.id);
+            if (at >= 0) {
+                entries[at] = entry;
+                return;
+            }
+            at = -at - 1;
+            grow();
+            System.arraycopy(entries, at, entries, at + 1, size - at);
+            entries[at] = entry;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int at = indexOf(id);
+            if (at < 0) return false;
+            System.arraycopy(entries, at + 1, entries, at, size - at - 1);
+            entries[--size] = null;
+            return true;
+        }
+
+        boolean contains(int id) {
+            return indexOf(id) >= 0;
+        }
+
+        private int indexOf(int id) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midId = entries[mid].id;
+                if (midId < id) {
+                    low = mid + 1;
+                } else if (midId > id) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void grow() {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+        }
+    }
+}
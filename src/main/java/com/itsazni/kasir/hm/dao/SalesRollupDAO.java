@@ -0,0 +1,210 @@
+package com.itsazni.kasir.hm.dao;
+
+import com.itsazni.kasir.hm.models.Money;
+import com.itsazni.kasir.hm.models.Transaction;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Data Access Object for the sales_rollup table: sale count and total per
+ * day, hour and cashier, kept up to date in the same database transaction
+ * that saves the sales.
+ */
+public class SalesRollupDAO {
+
+    /** app_state row holding the first month still to rebuild, or DONE */
+    private static final String BACKFILL_STATE = "sales_rollup.backfill";
+    private static final String DONE = "done";
+
+    private final DatabaseConnection dbConnection;
+
+    public SalesRollupDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+    }
+
+    /**
+     * Add sales to their rollup rows on conn without committing. Rows are
+     * touched in key order so concurrent batches lock them in the same order.
+     */
+    void add(Connection conn, List<Transaction> transactions) throws SQLException {
+        String sql = "INSERT INTO sales_rollup (sale_date, sale_hour, user_id, transaction_count, total_sales) "
+                + "VALUES (?, ?, ?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE transaction_count = transaction_count + VALUES(transaction_count), "
+                + "total_sales = total_sales + VALUES(total_sales)";
+
+        Map<Bucket, Bucket> buckets = new TreeMap<>(Bucket.ORDER);
+        for (Transaction transaction : transactions) {
+            Bucket key = new Bucket(transaction.getTransactionDate(), transaction.getUserId());
+            Bucket bucket = buckets.computeIfAbsent(key, k -> k);
+            bucket.count++;
+            bucket.total = bucket.total.plus(transaction.getTotal());
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Bucket bucket : buckets.keySet()) {
+                stmt.setDate(1, Date.valueOf(bucket.date));
+                stmt.setInt(2, bucket.hour);
+                stmt.setInt(3, bucket.userId);
+                stmt.setInt(4, bucket.count);
+                stmt.setBigDecimal(5, bucket.total.toBigDecimal());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Rebuild the rollup from the oldest transaction through today, e.g. on
+     * the first start after upgrading. Progress is stored in app_state with
+     * each month, so a backfill cut short by closing the app or an error
+     * resumes at the month it stopped at on the next start; once the
+     * current month is done the job is marked finished and never runs again.
+     * Returns the number of months rebuilt.
+     */
+    public int backfillMissing() {
+        LocalDate from;
+        try (Connection conn = dbConnection.getConnection()) {
+            String state = readState(conn);
+            if (DONE.equals(state)) {
+                return 0;
+            }
+            from = state != null ? LocalDate.parse(state) : firstSaleDate(conn);
+            if (from == null) {
+                // No older sales; every sale from now on is added as it is saved
+                writeState(conn, DONE);
+                return 0;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error backfilling sales rollup: " + e.getMessage());
+            return 0;
+        }
+
+        try {
+            return backfill(from, LocalDate.now(), true);
+        } catch (SQLException e) {
+            System.err.println("Error backfilling sales rollup: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Recompute the rollup from transactions for every month between from and
+     * to, one month per database transaction so saves are only briefly blocked
+     */
+    public int backfill(LocalDate from, LocalDate to) throws SQLException {
+        return backfill(from, to, false);
+    }
+
+    private int backfill(LocalDate from, LocalDate to, boolean recordProgress) throws SQLException {
+        String deleteSql = "DELETE FROM sales_rollup WHERE sale_date >= ? AND sale_date < ?";
+        String insertSql = "INSERT INTO sales_rollup (sale_date, sale_hour, user_id, transaction_count, total_sales) "
+                + "SELECT DATE(transaction_date), HOUR(transaction_date), COALESCE(user_id, 0), COUNT(*), SUM(total) "
+                + "FROM transactions WHERE transaction_date >= ? AND transaction_date < ? "
+                + "GROUP BY DATE(transaction_date), HOUR(transaction_date), COALESCE(user_id, 0)";
+
+        int months = 0;
+        for (LocalDate start = from.withDayOfMonth(1); !start.isAfter(to); start = start.plusMonths(1)) {
+            LocalDate end = start.plusMonths(1);
+            Connection conn = dbConnection.getConnection();
+            try {
+                conn.setAutoCommit(false);
+                try (PreparedStatement delete = conn.prepareStatement(deleteSql);
+                     PreparedStatement insert = conn.prepareStatement(insertSql)) {
+                    delete.setDate(1, Date.valueOf(start));
+                    delete.setDate(2, Date.valueOf(end));
+                    delete.executeUpdate();
+                    insert.setTimestamp(1, Timestamp.valueOf(start.atStartOfDay()));
+                    insert.setTimestamp(2, Timestamp.valueOf(end.atStartOfDay()));
+                    insert.executeUpdate();
+                }
+                if (recordProgress) {
+                    // Committed with the month, so the marker never runs ahead of the data
+                    writeState(conn, end.isAfter(to) ? DONE : end.toString());
+                }
+                conn.commit();
+                months++;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+        return months;
+    }
+
+    private String readState(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT value FROM app_state WHERE name = ?")) {
+            stmt.setString(1, BACKFILL_STATE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    private void writeState(Connection conn, String value) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO app_state (name, value) VALUES (?, ?) ON DUPLICATE KEY UPDATE value = VALUES(value)")) {
+            stmt.setString(1, BACKFILL_STATE);
+            stmt.setString(2, value);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Date of the oldest transaction, or null when there are none
+     */
+    private LocalDate firstSaleDate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MIN(transaction_date) FROM transactions")) {
+            Timestamp first = rs.next() ? rs.getTimestamp(1) : null;
+            return first == null ? null : first.toLocalDateTime().toLocalDate();
+        }
+    }
+
+    /**
+     * Rollup row key plus the amounts being added to it
+     */
+    private static class Bucket {
+        static final Comparator<Bucket> ORDER = Comparator.<Bucket, LocalDate>comparing(b -> b.date)
+                .thenComparingInt(b -> b.hour)
+                .thenComparingInt(b -> b.userId);
+
+        final LocalDate date;
+        final int hour;
+        final int userId;
+        int count;
+        Money total = Money.ZERO;
+
+        Bucket(LocalDateTime time, int userId) {
+            this.date = time.toLocalDate();
+            this.hour = time.getHour();
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Bucket)) return false;
+            Bucket other = (Bucket) o;
+            return date.equals(other.date) && hour == other.hour && userId == other.userId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(date, hour, userId);
+        }
+    }
+}
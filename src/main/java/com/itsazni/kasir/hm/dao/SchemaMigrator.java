@@ -0,0 +1,169 @@
+package com.itsazni.kasir.hm.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Applies the versioned scripts db/migration/V1.sql, V2.sql, ... from the
+ * classpath at startup and records each one in the schema_version table.
+ *
+ * Scripts may repeat what database_schema.sql already created for a new
+ * database: "table exists", "duplicate column" and "duplicate key name"
+ * errors are ignored. A named lock keeps two terminals from migrating at once.
+ */
+public class SchemaMigrator {
+
+    private static final String SCRIPT_PATH = "/db/migration/V%d.sql";
+    private static final String LOCK_NAME = "kasir_hm_schema_migration";
+
+    /** MySQL errors for objects a script creates that already exist */
+    private static final Set<Integer> ALREADY_APPLIED = Set.of(
+            1050, // ER_TABLE_EXISTS_ERROR
+            1060, // ER_DUP_FIELDNAME
+            1061  // ER_DUP_KEYNAME
+    );
+
+    private final DatabaseConnection dbConnection;
+
+    public SchemaMigrator() {
+        this.dbConnection = DatabaseConnection.getInstance();
+    }
+
+    /**
+     * Apply all scripts newer than the recorded schema version.
+     * Returns the number of scripts applied.
+     */
+    public int migrate() {
+        try (Connection conn = dbConnection.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS schema_version ("
+                        + "version INT PRIMARY KEY, "
+                        + "description VARCHAR(200) NOT NULL, "
+                        + "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            }
+            if (!acquireLock(conn)) {
+                System.err.println("Error migrating schema: another terminal holds the migration lock");
+                return 0;
+            }
+            try {
+                return applyPending(conn);
+            } finally {
+                releaseLock(conn);
+            }
+        } catch (SQLException | IOException e) {
+            System.err.println("Error migrating schema: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    private int applyPending(Connection conn) throws SQLException, IOException {
+        Set<Integer> applied = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM schema_version")) {
+            while (rs.next()) {
+                applied.add(rs.getInt(1));
+            }
+        }
+
+        int count = 0;
+        for (int version = 1; ; version++) {
+            String script = readScript(version);
+            if (script == null) break;
+            if (applied.contains(version)) continue;
+
+            for (String sql : splitStatements(script)) {
+                execute(conn, sql);
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                stmt.setInt(1, version);
+                stmt.setString(2, describe(script));
+                stmt.executeUpdate();
+            }
+            System.err.println("Schema migrated to version " + version);
+            count++;
+        }
+        return count;
+    }
+
+    private void execute(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        } catch (SQLException e) {
+            if (!ALREADY_APPLIED.contains(e.getErrorCode())) throw e;
+        }
+    }
+
+    private boolean acquireLock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, 30)")) {
+            stmt.setString(1, LOCK_NAME);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private void releaseLock(Connection conn) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            System.err.println("Error releasing migration lock: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Script text for a version, or null when there is no such script
+     */
+    private static String readScript(int version) throws IOException {
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream(String.format(SCRIPT_PATH, version))) {
+            return in == null ? null : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * First comment line of a script
+     */
+    private static String describe(String script) {
+        for (String line : script.split("\n")) {
+            line = line.trim();
+            if (line.startsWith("--")) {
+                String description = line.substring(2).trim();
+                return description.length() > 200 ? description.substring(0, 200) : description;
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Statements separated by ';' at the end of a line, without comment lines
+     */
+    private static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) continue;
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                String sql = current.toString().trim();
+                statements.add(sql.substring(0, sql.length() - 1));
+                current.setLength(0);
+            }
+        }
+        if (current.toString().trim().length() > 0) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,147 @@
+package com.itsazni.kasir.hm.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of prepared statements for one pooled connection, keyed by SQL text.
+ *
+ * A cached statement is removed from the cache while it is in use, so two
+ * open statements never share one physical handle. Closing the handed-out
+ * statement puts it back instead of closing it.
+ */
+class StatementCache {
+
+    private final Connection physical;
+    private final int maxSize;
+    private final ConnectionPool pool;
+    private final LinkedHashMap<String, PreparedStatement> cache;
+
+    StatementCache(Connection physical, int maxSize, ConnectionPool pool) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.pool = pool;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Get a statement for sql, preparing it only on a cache miss.
+     * autoGeneratedKeys is Statement.NO_GENERATED_KEYS or RETURN_GENERATED_KEYS.
+     */
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+
+        PreparedStatement stmt = maxSize > 0 ? cache.remove(key) : null;
+        if (stmt != null) {
+            pool.recordStatementCacheHit();
+        } else {
+            pool.recordStatementCacheMiss();
+            stmt = physical.prepareStatement(sql, autoGeneratedKeys);
+        }
+
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new CachedStatementHandler(key, stmt));
+    }
+
+    /**
+     * Close every cached physical statement
+     */
+    void clear() {
+        for (PreparedStatement stmt : cache.values()) {
+            closeQuietly(stmt);
+        }
+        cache.clear();
+    }
+
+    int size() {
+        return cache.size();
+    }
+
+    private void giveBack(String key, PreparedStatement stmt) {
+        if (maxSize <= 0) {
+            closeQuietly(stmt);
+            return;
+        }
+        try {
+            stmt.clearParameters();
+            stmt.clearBatch();
+        } catch (SQLException e) {
+            closeQuietly(stmt);
+            return;
+        }
+
+        PreparedStatement previous = cache.put(key, stmt);
+        if (previous != null && previous != stmt) {
+            closeQuietly(previous);
+        }
+        if (cache.size() > maxSize) {
+            Iterator<Map.Entry<String, PreparedStatement>> eldest = cache.entrySet().iterator();
+            closeQuietly(eldest.next().getValue());
+            eldest.remove();
+            pool.recordStatementCacheEviction();
+        }
+    }
+
+    private static void closeQuietly(Statement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException ignored) {
+            // Nothing useful to do with a statement we are discarding
+        }
+    }
+
+    /**
+     * Handler for the statement handed to the DAO
+     */
+    private class CachedStatementHandler implements InvocationHandler {
+
+        private final String key;
+        private final PreparedStatement delegate;
+        private boolean closed;
+
+        CachedStatementHandler(String key, PreparedStatement delegate) {
+            this.key = key;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        giveBack(key, delegate);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || delegate.isClosed();
+                case "equals":
+                    return target == args[0];
+                case "hashCode":
+                    return System.identityHashCode(target);
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.itsazni.kasir.hm.dao;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+/**
+ * Streams transactions and their line items for a date range to CSV, one
+ * row per item, straight from a forward-only MySQL cursor. Rows are written
+ * as they arrive, so memory use does not grow with the size of the range.
+ */
+public class TransactionCsvExporter {
+
+    public static final String HEADER = "ID,Tanggal,Kasir,Subtotal,Diskon,Total,Bayar,Kembali,"
+            + "Produk,Harga,Jumlah,Subtotal Item";
+
+    /** Transactions between progress callbacks */
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    /**
+     * Receives progress and is polled for cancellation while exporting
+     */
+    public interface Progress {
+        void update(long transactions, long total);
+
+        boolean isCancelled();
+    }
+
+    private final DatabaseConnection dbConnection;
+
+    public TransactionCsvExporter() {
+        this.dbConnection = DatabaseConnection.getInstance();
+    }
+
+    /**
+     * Write transactions dated from..to (inclusive) to out. Returns the
+     * number of transactions written, which is short of the total when the
+     * export was cancelled. The caller owns and closes out.
+     */
+    public long export(LocalDate from, LocalDate to, Writer out, Progress progress) throws SQLException, IOException {
+        String sql = "SELECT t.id, t.transaction_date, u.username, t.subtotal, t.discount_amount, t.total, "
+                + "t.payment, t.change_amount, i.product_name, i.price, i.quantity, i.subtotal AS item_subtotal "
+                + "FROM transactions t "
+                + "LEFT JOIN users u ON u.id = t.user_id "
+                + "LEFT JOIN transaction_items i ON i.transaction_id = t.id "
+                + "WHERE t.transaction_date >= ? AND t.transaction_date < ? "
+                + "ORDER BY t.transaction_date, t.id";
+
+        long total = countTransactions(from, to);
+        long written = 0;
+        StringBuilder line = new StringBuilder(256);
+
+        out.write(HEADER);
+        out.write('\n');
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Connector/J streams row by row instead of buffering the whole result
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            stmt.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+            stmt.setTimestamp(2, Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                int lastId = -1;
+                while (rs.next()) {
+                    int id = rs.getInt(1);
+                    if (id != lastId) {
+                        lastId = id;
+                        if (written % PROGRESS_INTERVAL == 0) {
+                            progress.update(written, total);
+                            if (progress.isCancelled()) {
+                                // Stop the query; otherwise closing drains the remaining rows
+                                stmt.cancel();
+                                return written;
+                            }
+                        }
+                        written++;
+                    }
+
+                    line.setLength(0);
+                    line.append(id).append(',');
+                    appendText(line, rs.getString(2)).append(',');
+                    appendText(line, rs.getString(3)).append(',');
+                    // Decimals are copied as the server sent them, without BigDecimal
+                    for (int column = 4; column <= 8; column++) {
+                        line.append(rs.getString(column)).append(',');
+                    }
+                    appendText(line, rs.getString(9)).append(',');
+                    appendNullable(line, rs.getString(10)).append(',');
+                    appendNullable(line, rs.getString(11)).append(',');
+                    appendNullable(line, rs.getString(12)).append('\n');
+                    out.append(line);
+                }
+            }
+        }
+        progress.update(written, total);
+        return written;
+    }
+
+    /**
+     * Transaction count for the range, for progress only. Counted on
+     * transactions over idx_transaction_date, so it is right before the
+     * sales rollup is backfilled too.
+     */
+    private long countTransactions(LocalDate from, LocalDate to) {
+        String sql = "SELECT COUNT(*) FROM transactions WHERE transaction_date >= ? AND transaction_date < ?";
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+            stmt.setTimestamp(2, Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error counting transactions for export: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    private static StringBuilder appendNullable(StringBuilder line, String value) {
+        return value == null ? line : line.append(value);
+    }
+
+    /**
+     * Quoted CSV field with embedded quotes doubled
+     */
+    private static StringBuilder appendText(StringBuilder line, String value) {
+        line.append('"');
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') line.append('"');
+                line.append(c);
+            }
+        }
+        return line.append('"');
+    }
+}
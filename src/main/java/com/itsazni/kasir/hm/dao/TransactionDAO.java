@@ -1,122 +1,381 @@
 package com.itsazni.kasir.hm.dao;
 
+import com.itsazni.kasir.hm.models.Money;
 import com.itsazni.kasir.hm.models.Transaction;
 import com.itsazni.kasir.hm.models.TransactionItem;
+import com.itsazni.kasir.hm.utils.AppConfig;
 import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
 
 /**
  * Data Access Object for Transaction operations
  */
 public class TransactionDAO {
     
+    /** MySQL duplicate key error */
+    private static final int ER_DUP_ENTRY = 1062;
+    
+    /** Headers joined with their items, one row per item; append WHERE and ORDER BY */
+    private static final String WITH_ITEMS_SQL = "SELECT t.*, i.id AS item_id, i.product_id, i.product_name, "
+            + "i.quantity, i.price, i.subtotal AS item_subtotal "
+            + "FROM transactions t LEFT JOIN transaction_items i ON i.transaction_id = t.id ";
+    
     private final DatabaseConnection dbConnection;
     private final ProductDAO productDAO;
+    private final ProductCatalog catalog;
+    private final TransactionIdAllocator idAllocator;
+    private final SalesRollupDAO salesRollup;
     
     public TransactionDAO() {
         this.dbConnection = DatabaseConnection.getInstance();
         this.productDAO = new ProductDAO();
+        this.catalog = ProductCatalog.getInstance();
+        this.idAllocator = TransactionIdAllocator.getInstance();
+        this.salesRollup = new SalesRollupDAO();
     }
     
     /**
-     * Save transaction with all items
+     * Save transaction with all items. With db.groupCommit enabled the sale
+     * is committed together with sales from other checkouts; this still
+     * blocks until it is durable.
+     *
+     * @throws InsufficientStockException if the sale would oversell; nothing
+     *         is saved and the exception names the short lines
      */
-    public boolean save(Transaction transaction) {
-        String transactionSql = "INSERT INTO transactions (user_id, subtotal, discount_percent, discount_amount, total, payment, change_amount) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        String itemSql = "INSERT INTO transaction_items (transaction_id, product_id, product_name, quantity, price, subtotal) VALUES (?, ?, ?, ?, ?, ?)";
-        
+    public boolean save(Transaction transaction) throws InsufficientStockException {
+        if (AppConfig.getInstance().isGroupCommit()) {
+            try {
+                return GroupCommitWriter.getInstance().submit(transaction).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof InsufficientStockException) {
+                    throw (InsufficientStockException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return saveDirect(transaction);
+    }
+    
+    /**
+     * Save one transaction in its own database transaction
+     */
+    boolean saveDirect(Transaction transaction) throws InsufficientStockException {
         Connection conn = null;
         try {
+            transaction.setTransactionDate(LocalDateTime.now());
+            assignIds(List.of(transaction));
             conn = dbConnection.getConnection();
             conn.setAutoCommit(false);
             
-            // Insert transaction
-            PreparedStatement transactionStmt = conn.prepareStatement(transactionSql, Statement.RETURN_GENERATED_KEYS);
-            transactionStmt.setInt(1, transaction.getUserId());
-            transactionStmt.setBigDecimal(2, transaction.getSubtotal());
-            transactionStmt.setBigDecimal(3, transaction.getDiscountPercent());
-            transactionStmt.setBigDecimal(4, transaction.getDiscountAmount());
-            transactionStmt.setBigDecimal(5, transaction.getTotal());
-            transactionStmt.setBigDecimal(6, transaction.getPayment());
-            transactionStmt.setBigDecimal(7, transaction.getChangeAmount());
+            insertTransactions(conn, List.of(transaction), false);
+            conn.commit();
             
-            int affected = transactionStmt.executeUpdate();
-            if (affected == 0) {
-                conn.rollback();
-                return false;
+            for (TransactionItem item : transaction.getItems()) {
+                catalog.adjustStock(item.getProductId(), -item.getQuantity());
             }
+            return true;
             
-            ResultSet keys = transactionStmt.getGeneratedKeys();
-            if (keys.next()) {
-                transaction.setId(keys.getInt(1));
+        } catch (InsufficientStockException e) {
+            rollback(conn);
+            throw e;
+        } catch (SQLException e) {
+            System.err.println("Error saving transaction: " + e.getMessage());
+            rollback(conn);
+        } finally {
+            release(conn);
+        }
+        return false;
+    }
+    
+    /**
+     * Save several transactions in a single database transaction. Either all
+     * of them are committed or none is, in which case the exception is thrown.
+     */
+    void saveAll(List<Transaction> transactions) throws SQLException {
+        Connection conn = null;
+        try {
+            for (Transaction transaction : transactions) {
+                transaction.setTransactionDate(LocalDateTime.now());
             }
+            assignIds(transactions);
+            conn = dbConnection.getConnection();
+            conn.setAutoCommit(false);
             
-            // Insert items and update stock
-            PreparedStatement itemStmt = conn.prepareStatement(itemSql);
+            insertTransactions(conn, transactions, false);
+            conn.commit();
+        } catch (SQLException e) {
+            rollback(conn);
+            throw e;
+        } finally {
+            release(conn);
+        }
+        
+        for (Transaction transaction : transactions) {
             for (TransactionItem item : transaction.getItems()) {
-                itemStmt.setInt(1, transaction.getId());
-                itemStmt.setInt(2, item.getProductId());
-                itemStmt.setString(3, item.getProductName());
-                itemStmt.setInt(4, item.getQuantity());
-                itemStmt.setBigDecimal(5, item.getPrice());
-                itemStmt.setBigDecimal(6, item.getSubtotal());
-                itemStmt.addBatch();
-                
-                // Update stock
-                String stockSql = "UPDATE products SET stock = stock - ? WHERE id = ?";
-                PreparedStatement stockStmt = conn.prepareStatement(stockSql);
-                stockStmt.setInt(1, item.getQuantity());
-                stockStmt.setInt(2, item.getProductId());
-                stockStmt.executeUpdate();
+                catalog.adjustStock(item.getProductId(), -item.getQuantity());
             }
+        }
+    }
+    
+    /**
+     * Replay several journaled sales in one database transaction. If any of
+     * them was already applied the batch is rolled back and replayed one
+     * sale at a time.
+     */
+    void replayAll(List<Transaction> transactions) throws SQLException {
+        if (transactions.size() == 1) {
+            replay(transactions.get(0));
+            return;
+        }
+        
+        Connection conn = null;
+        try {
+            assignIds(transactions);
+            conn = dbConnection.getConnection();
+            conn.setAutoCommit(false);
             
-            itemStmt.executeBatch();
+            try {
+                insertTransactions(conn, transactions, true);
+            } catch (SQLException e) {
+                if (e.getErrorCode() != ER_DUP_ENTRY) throw e;
+                conn.rollback();
+                release(conn);
+                conn = null;
+                for (Transaction transaction : transactions) {
+                    replay(transaction);
+                }
+                return;
+            }
             conn.commit();
-            return true;
-            
         } catch (SQLException e) {
-            System.err.println("Error saving transaction: " + e.getMessage());
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    System.err.println("Error rolling back: " + ex.getMessage());
+            rollback(conn);
+            throw e;
+        } finally {
+            release(conn);
+        }
+    }
+    
+    /**
+     * Write a journaled sale. Safe to call more than once for the same sale:
+     * a second call finds its client_ref already present and does nothing.
+     * Stock in the catalog was already adjusted when the sale was journaled.
+     */
+    void replay(Transaction transaction) throws SQLException {
+        Connection conn = null;
+        try {
+            assignIds(List.of(transaction));
+            conn = dbConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            try {
+                insertTransactions(conn, List.of(transaction), true);
+            } catch (SQLException e) {
+                if (e.getErrorCode() != ER_DUP_ENTRY) throw e;
+                conn.rollback();
+                if (isApplied(conn, transaction.getClientRef())) {
+                    // Applied before the last checkpoint was written
+                    return;
                 }
+                // The ID clashed instead; number the sale again
+                transaction.setId(0);
+                assignIds(List.of(transaction));
+                insertTransactions(conn, List.of(transaction), true);
             }
+            conn.commit();
+        } catch (SQLException e) {
+            rollback(conn);
+            throw e;
         } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                } catch (SQLException e) {
-                    System.err.println("Error resetting auto commit: " + e.getMessage());
+            release(conn);
+        }
+    }
+    
+    private boolean isApplied(Connection conn, String clientRef) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM transactions WHERE client_ref = ?")) {
+            stmt.setString(1, clientRef);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+    
+    /**
+     * Number sales that have no ID yet from the locally reserved block
+     */
+    private void assignIds(List<Transaction> transactions) throws SQLException {
+        for (Transaction transaction : transactions) {
+            if (transaction.getId() <= 0) {
+                transaction.setId(idAllocator.nextId());
+            }
+        }
+    }
+    
+    /**
+     * Insert headers, items and stock changes on conn without committing.
+     * IDs are already assigned, so all headers go out as one batch followed
+     * by all items as one batch, and the sales are added to the rollup.
+     * Journaled sales skip the oversell check, since the customer already
+     * left with the goods.
+     */
+    private void insertTransactions(Connection conn, List<Transaction> transactions, boolean journaled) throws SQLException {
+        String transactionSql = "INSERT INTO transactions (id, user_id, subtotal, discount_percent, discount_amount, total, payment, change_amount, client_ref, transaction_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String itemSql = "INSERT INTO transaction_items (transaction_id, product_id, product_name, quantity, price, subtotal) VALUES (?, ?, ?, ?, ?, ?)";
+        
+        // Insert transactions
+        try (PreparedStatement transactionStmt = conn.prepareStatement(transactionSql)) {
+            for (Transaction transaction : transactions) {
+                transactionStmt.setInt(1, transaction.getId());
+                transactionStmt.setInt(2, transaction.getUserId());
+                transactionStmt.setBigDecimal(3, transaction.getSubtotal().toBigDecimal());
+                transactionStmt.setBigDecimal(4, transaction.getDiscountPercent());
+                transactionStmt.setBigDecimal(5, transaction.getDiscountAmount().toBigDecimal());
+                transactionStmt.setBigDecimal(6, transaction.getTotal().toBigDecimal());
+                transactionStmt.setBigDecimal(7, transaction.getPayment().toBigDecimal());
+                transactionStmt.setBigDecimal(8, transaction.getChangeAmount().toBigDecimal());
+                transactionStmt.setString(9, transaction.getClientRef());
+                transactionStmt.setTimestamp(10, Timestamp.valueOf(transaction.getTransactionDate()));
+                transactionStmt.addBatch();
+            }
+            transactionStmt.executeBatch();
+        }
+        
+        // Insert items
+        try (PreparedStatement itemStmt = conn.prepareStatement(itemSql)) {
+            for (Transaction transaction : transactions) {
+                for (TransactionItem item : transaction.getItems()) {
+                    itemStmt.setInt(1, transaction.getId());
+                    itemStmt.setInt(2, item.getProductId());
+                    itemStmt.setString(3, item.getProductName());
+                    itemStmt.setInt(4, item.getQuantity());
+                    itemStmt.setBigDecimal(5, item.getPrice().toBigDecimal());
+                    itemStmt.setBigDecimal(6, item.getSubtotal().toBigDecimal());
+                    itemStmt.addBatch();
                 }
             }
+            itemStmt.executeBatch();
+        }
+        
+        for (Transaction transaction : transactions) {
+            decrementStock(conn, transaction.getItems(), !journaled);
+        }
+        
+        salesRollup.add(conn, transactions);
+    }
+    
+    /**
+     * Decrement stock for a whole basket in one statement. With checkStock,
+     * a line is only applied while stock >= quantity (as in
+     * ProductDAO.updateStock); if any line falls short the transaction on
+     * conn is rolled back and the short lines are reported.
+     */
+    private void decrementStock(Connection conn, List<TransactionItem> items, boolean checkStock) throws SQLException {
+        if (items.isEmpty()) return;
+        
+        StringBuilder sql = new StringBuilder("UPDATE products p JOIN (SELECT ? AS id, ? AS qty");
+        for (int i = 1; i < items.size(); i++) {
+            sql.append(" UNION ALL SELECT ?, ?");
+        }
+        sql.append(") d ON p.id = d.id SET p.stock = p.stock - d.qty");
+        if (checkStock) {
+            sql.append(" WHERE p.stock >= d.qty");
+        }
+        
+        int updated;
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (TransactionItem item : items) {
+                stmt.setInt(index++, item.getProductId());
+                stmt.setInt(index++, item.getQuantity());
+            }
+            updated = stmt.executeUpdate();
+        }
+        
+        if (checkStock && updated < items.size()) {
+            // Undo the lines that did apply so the report sees the stock they were checked against
+            conn.rollback();
+            throw findShortItems(conn, items);
+        }
+    }
+    
+    /**
+     * Build the oversell report for a basket whose stock update fell short
+     */
+    private InsufficientStockException findShortItems(Connection conn, List<TransactionItem> items) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT id, stock FROM products WHERE id IN (?");
+        for (int i = 1; i < items.size(); i++) {
+            sql.append(", ?");
+        }
+        sql.append(')');
+        
+        Map<Integer, Integer> available = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < items.size(); i++) {
+                stmt.setInt(i + 1, items.get(i).getProductId());
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    available.put(rs.getInt("id"), rs.getInt("stock"));
+                }
+            }
+        }
+        
+        List<TransactionItem> shortItems = new ArrayList<>();
+        for (TransactionItem item : items) {
+            if (available.getOrDefault(item.getProductId(), 0) < item.getQuantity()) {
+                shortItems.add(item);
+            }
+        }
+        return new InsufficientStockException(shortItems, available);
+    }
+    
+    private void rollback(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                System.err.println("Error rolling back: " + ex.getMessage());
+            }
+        }
+    }
+    
+    private void release(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                System.err.println("Error resetting auto commit: " + e.getMessage());
+            }
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                System.err.println("Error returning connection: " + e.getMessage());
+            }
         }
-        return false;
     }
     
     /**
      * Find transaction by ID
      */
     public Transaction findById(int id) {
-        String sql = "SELECT * FROM transactions WHERE id = ?";
+        String sql = WITH_ITEMS_SQL + "WHERE t.id = ? ORDER BY i.id";
         
         try (Connection conn = dbConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, id);
-            ResultSet rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                Transaction transaction = mapResultSetToTransaction(rs);
-                transaction.setItems(findItemsByTransactionId(id));
-                return transaction;
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<Transaction> transactions = mapTransactionsWithItems(rs);
+                if (!transactions.isEmpty()) {
+                    return transactions.get(0);
+                }
             }
         } catch (SQLException e) {
             System.err.println("Error finding transaction: " + e.getMessage());
@@ -145,26 +404,123 @@ public class TransactionDAO {
     }
     
     /**
-     * Get transactions by date range
+     * Get transactions by date range, with their items
      */
     public List<Transaction> findByDateRange(LocalDate startDate, LocalDate endDate) {
-        List<Transaction> transactions = new ArrayList<>();
-        String sql = "SELECT * FROM transactions WHERE DATE(transaction_date) BETWEEN ? AND ? ORDER BY transaction_date DESC";
+        // Half-open range on the bare column so idx_transaction_date is used
+        String sql = WITH_ITEMS_SQL
+                + "WHERE t.transaction_date >= ? AND t.transaction_date < ? "
+                + "ORDER BY t.transaction_date DESC, t.id DESC, i.id";
         
         try (Connection conn = dbConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setDate(1, Date.valueOf(startDate));
-            stmt.setDate(2, Date.valueOf(endDate));
+            stmt.setTimestamp(1, Timestamp.valueOf(startDate.atStartOfDay()));
+            stmt.setTimestamp(2, Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
             
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                transactions.add(mapResultSetToTransaction(rs));
+            try (ResultSet rs = stmt.executeQuery()) {
+                return mapTransactionsWithItems(rs);
             }
         } catch (SQLException e) {
             System.err.println("Error fetching transactions by date: " + e.getMessage());
         }
-        return transactions;
+        return new ArrayList<>();
+    }
+    
+    /**
+     * Number of transactions dated from..to (inclusive). Counted on
+     * transactions itself rather than the sales rollup, so that it is exact
+     * even before the rollup is backfilled; idx_transaction_date covers it.
+     */
+    public int countByDateRange(LocalDate startDate, LocalDate endDate) {
+        String sql = "SELECT COUNT(*) as count FROM transactions WHERE transaction_date >= ? AND transaction_date < ?";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setTimestamp(1, Timestamp.valueOf(startDate.atStartOfDay()));
+            stmt.setTimestamp(2, Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("count");
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error counting transactions by date: " + e.getMessage());
+        }
+        return 0;
+    }
+    
+    /**
+     * One page of transactions dated from..to, with their items, newest first.
+     * The page starts after the transaction with the given date and ID (keyset
+     * pagination), or at the newest one when afterDate is null.
+     */
+    public List<Transaction> findPageByDateRange(LocalDate startDate, LocalDate endDate,
+                                                 LocalDateTime afterDate, int afterId, int limit) {
+        String keyset = afterDate == null ? ""
+                : "AND (transaction_date < ? OR (transaction_date = ? AND id < ?)) ";
+        String sql = "SELECT t.*, i.id AS item_id, i.product_id, i.product_name, "
+                + "i.quantity, i.price, i.subtotal AS item_subtotal "
+                + "FROM (SELECT * FROM transactions "
+                + "WHERE transaction_date >= ? AND transaction_date < ? " + keyset
+                + "ORDER BY transaction_date DESC, id DESC LIMIT ?) t "
+                + "LEFT JOIN transaction_items i ON i.transaction_id = t.id "
+                + "ORDER BY t.transaction_date DESC, t.id DESC, i.id";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            int index = 1;
+            stmt.setTimestamp(index++, Timestamp.valueOf(startDate.atStartOfDay()));
+            stmt.setTimestamp(index++, Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
+            if (afterDate != null) {
+                stmt.setTimestamp(index++, Timestamp.valueOf(afterDate));
+                stmt.setTimestamp(index++, Timestamp.valueOf(afterDate));
+                stmt.setInt(index++, afterId);
+            }
+            stmt.setInt(index, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return mapTransactionsWithItems(rs);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error fetching transaction page: " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+    
+    /**
+     * Transaction at position offset (newest first) among those dated
+     * from..to, with only its ID and date set, or null past the end. Reads
+     * only idx_transaction_date, so a page far down the list can be opened
+     * without fetching the pages before it.
+     */
+    public Transaction findKeyAt(LocalDate startDate, LocalDate endDate, int offset) {
+        String sql = "SELECT id, transaction_date FROM transactions "
+                + "WHERE transaction_date >= ? AND transaction_date < ? "
+                + "ORDER BY transaction_date DESC, id DESC LIMIT 1 OFFSET ?";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setTimestamp(1, Timestamp.valueOf(startDate.atStartOfDay()));
+            stmt.setTimestamp(2, Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
+            stmt.setInt(3, offset);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    Transaction key = new Transaction();
+                    key.setId(rs.getInt("id"));
+                    key.setTransactionDate(rs.getTimestamp("transaction_date").toLocalDateTime());
+                    return key;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error finding transaction page start: " + e.getMessage());
+        }
+        return null;
     }
     
     /**
@@ -179,14 +535,17 @@ public class TransactionDAO {
      * Get today's total sales
      */
     public BigDecimal getTodaySales() {
-        String sql = "SELECT COALESCE(SUM(total), 0) as total_sales FROM transactions WHERE DATE(transaction_date) = CURDATE()";
+        // Today on this terminal's clock, the same clock that dates the rollup rows
+        String sql = "SELECT COALESCE(SUM(total_sales), 0) as total_sales FROM sales_rollup WHERE sale_date = ?";
         
         try (Connection conn = dbConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            if (rs.next()) {
-                return rs.getBigDecimal("total_sales");
+            stmt.setDate(1, Date.valueOf(LocalDate.now()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getBigDecimal("total_sales");
+                }
             }
         } catch (SQLException e) {
             System.err.println("Error getting today's sales: " + e.getMessage());
@@ -198,14 +557,17 @@ public class TransactionDAO {
      * Get today's transaction count
      */
     public int getTodayTransactionCount() {
-        String sql = "SELECT COUNT(*) as count FROM transactions WHERE DATE(transaction_date) = CURDATE()";
+        // Today on this terminal's clock, the same clock that dates the rollup rows
+        String sql = "SELECT COALESCE(SUM(transaction_count), 0) as count FROM sales_rollup WHERE sale_date = ?";
         
         try (Connection conn = dbConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            if (rs.next()) {
-                return rs.getInt("count");
+            stmt.setDate(1, Date.valueOf(LocalDate.now()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("count");
+                }
             }
         } catch (SQLException e) {
             System.err.println("Error getting transaction count: " + e.getMessage());
@@ -218,16 +580,16 @@ public class TransactionDAO {
      */
     public Map<LocalDate, BigDecimal> getDailySales(int days) {
         Map<LocalDate, BigDecimal> dailySales = new HashMap<>();
-        String sql = "SELECT DATE(transaction_date) as sale_date, SUM(total) as daily_total " +
-                     "FROM transactions " +
-                     "WHERE transaction_date >= DATE_SUB(CURDATE(), INTERVAL ? DAY) " +
-                     "GROUP BY DATE(transaction_date) " +
+        String sql = "SELECT sale_date, SUM(total_sales) as daily_total " +
+                     "FROM sales_rollup " +
+                     "WHERE sale_date >= ? " +
+                     "GROUP BY sale_date " +
                      "ORDER BY sale_date";
         
         try (Connection conn = dbConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setInt(1, days);
+            stmt.setDate(1, Date.valueOf(LocalDate.now().minusDays(days)));
             ResultSet rs = stmt.executeQuery();
             
             while (rs.next()) {
@@ -241,6 +603,38 @@ public class TransactionDAO {
         return dailySales;
     }
     
+    /**
+     * Daily sales totals for the dates in [from, to), one slot per day
+     * starting at from, with 0 for days without sales
+     */
+    public double[] getDailySalesSeries(LocalDate from, LocalDate to) {
+        int days = (int) Math.max(0, ChronoUnit.DAYS.between(from, to));
+        double[] series = new double[days];
+        if (days == 0) return series;
+        
+        String sql = "SELECT sale_date, SUM(total_sales) as daily_total " +
+                     "FROM sales_rollup " +
+                     "WHERE sale_date >= ? AND sale_date < ? " +
+                     "GROUP BY sale_date";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setDate(1, Date.valueOf(from));
+            stmt.setDate(2, Date.valueOf(to));
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int day = (int) ChronoUnit.DAYS.between(from, rs.getDate("sale_date").toLocalDate());
+                    series[day] = rs.getDouble("daily_total");
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting daily sales series: " + e.getMessage());
+        }
+        return series;
+    }
+    
     /**
      * Get items for a transaction
      */
@@ -261,8 +655,8 @@ public class TransactionDAO {
                 item.setProductId(rs.getInt("product_id"));
                 item.setProductName(rs.getString("product_name"));
                 item.setQuantity(rs.getInt("quantity"));
-                item.setPrice(rs.getBigDecimal("price"));
-                item.setSubtotal(rs.getBigDecimal("subtotal"));
+                item.setPrice(Money.of(rs.getBigDecimal("price")));
+                item.setSubtotal(Money.of(rs.getBigDecimal("subtotal")));
                 items.add(item);
             }
         } catch (SQLException e) {
@@ -271,6 +665,37 @@ public class TransactionDAO {
         return items;
     }
     
+    /**
+     * Assemble transactions from WITH_ITEMS_SQL rows in one pass. Rows of one
+     * transaction must be adjacent; items are added without recalculating
+     * the stored totals.
+     */
+    private List<Transaction> mapTransactionsWithItems(ResultSet rs) throws SQLException {
+        List<Transaction> transactions = new ArrayList<>();
+        Transaction current = null;
+        while (rs.next()) {
+            int id = rs.getInt("id");
+            if (current == null || current.getId() != id) {
+                current = mapResultSetToTransaction(rs);
+                transactions.add(current);
+            }
+            
+            int itemId = rs.getInt("item_id");
+            if (rs.wasNull()) continue; // Transaction without items
+            
+            TransactionItem item = new TransactionItem();
+            item.setId(itemId);
+            item.setTransactionId(id);
+            item.setProductId(rs.getInt("product_id"));
+            item.setProductName(rs.getString("product_name"));
+            item.setQuantity(rs.getInt("quantity"));
+            item.setPrice(Money.of(rs.getBigDecimal("price")));
+            item.setSubtotal(Money.of(rs.getBigDecimal("item_subtotal")));
+            current.getItems().add(item);
+        }
+        return transactions;
+    }
+    
     /**
      * Map ResultSet to Transaction object
      */
@@ -284,12 +709,12 @@ public class TransactionDAO {
             transaction.setTransactionDate(date.toLocalDateTime());
         }
         
-        transaction.setSubtotal(rs.getBigDecimal("subtotal"));
+        transaction.setSubtotal(Money.of(rs.getBigDecimal("subtotal")));
         transaction.setDiscountPercent(rs.getBigDecimal("discount_percent"));
-        transaction.setDiscountAmount(rs.getBigDecimal("discount_amount"));
-        transaction.setTotal(rs.getBigDecimal("total"));
-        transaction.setPayment(rs.getBigDecimal("payment"));
-        transaction.setChangeAmount(rs.getBigDecimal("change_amount"));
+        transaction.setDiscountAmount(Money.of(rs.getBigDecimal("discount_amount")));
+        transaction.setTotal(Money.of(rs.getBigDecimal("total")));
+        transaction.setPayment(Money.of(rs.getBigDecimal("payment")));
+        transaction.setChangeAmount(Money.of(rs.getBigDecimal("change_amount")));
         
         return transaction;
     }
@@ -0,0 +1,157 @@
+package com.itsazni.kasir.hm.dao;
+
+import com.itsazni.kasir.hm.utils.AppConfig;
+import com.itsazni.kasir.hm.utils.Histogram;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out transaction IDs from blocks reserved in the id_sequences table
+ * (hi/lo), so a terminal knows a sale's receipt number before it reaches
+ * the database. Each terminal reserves its own blocks; IDs left in a block
+ * when the application exits are skipped, so IDs are unique but not gapless.
+ */
+public class TransactionIdAllocator {
+
+    private static final String SEQUENCE = "transactions";
+
+    private static TransactionIdAllocator instance;
+
+    private final DatabaseConnection dbConnection;
+    private final int blockSize;
+
+    // Reserved blocks as {next, limit}, guarded by this
+    private final Deque<long[]> blocks = new ArrayDeque<>();
+    private long remaining;
+
+    // Serializes round trips to id_sequences
+    private final ReentrantLock reserveLock = new ReentrantLock();
+
+    // Metrics
+    private final Histogram reserveLatency = new Histogram();
+
+    private TransactionIdAllocator() {
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.blockSize = Math.max(1, AppConfig.getInstance().getIntProperty("db.idBlockSize", 100));
+    }
+
+    public static synchronized TransactionIdAllocator getInstance() {
+        if (instance == null) {
+            instance = new TransactionIdAllocator();
+        }
+        return instance;
+    }
+
+    /**
+     * The instance if it was created already, otherwise null
+     */
+    public static synchronized TransactionIdAllocator getExistingInstance() {
+        return instance;
+    }
+
+    /**
+     * Next ID, reserving a new block from the database when none is left
+     */
+    public int nextId() throws SQLException {
+        while (true) {
+            int id = tryNextId();
+            if (id > 0) return id;
+            reserveBlock();
+        }
+    }
+
+    /**
+     * Next ID from an already reserved block, or 0 without touching the database
+     */
+    public synchronized int tryNextId() {
+        long[] block = blocks.peekFirst();
+        if (block == null) return 0;
+        long id = block[0]++;
+        if (block[0] >= block[1]) {
+            blocks.removeFirst();
+        }
+        remaining--;
+        return (int) id;
+    }
+
+    /**
+     * Reserve another block ahead of time when less than half a block is left,
+     * so sales taken while the database is unreachable still get an ID
+     */
+    public void ensureAvailable() throws SQLException {
+        if (getRemaining() < blockSize / 2 + 1) {
+            reserveBlock();
+        }
+    }
+
+    public synchronized long getRemaining() {
+        return remaining;
+    }
+
+    private void reserveBlock() throws SQLException {
+        reserveLock.lock();
+        try {
+            // Another thread may have reserved one while we waited
+            if (getRemaining() >= blockSize / 2 + 1) return;
+
+            long start = System.nanoTime();
+            long limit = reserve();
+            reserveLatency.recordSince(start);
+            synchronized (this) {
+                blocks.addLast(new long[] {limit - blockSize, limit});
+                remaining += blockSize;
+            }
+        } finally {
+            reserveLock.unlock();
+        }
+    }
+
+    /**
+     * Advance the sequence by one block in its own short transaction and
+     * return the exclusive upper bound of the reserved block
+     */
+    private long reserve() throws SQLException {
+        String advanceSql = "UPDATE id_sequences SET next_value = LAST_INSERT_ID(next_value + ?) WHERE name = ?";
+        // Start above every ID handed out by AUTO_INCREMENT before this table existed
+        String seedSql = "INSERT IGNORE INTO id_sequences (name, next_value) "
+                + "SELECT ?, COALESCE(MAX(id), 0) + 1 FROM transactions";
+
+        try (Connection conn = dbConnection.getConnection()) {
+            try (PreparedStatement advance = conn.prepareStatement(advanceSql)) {
+                advance.setInt(1, blockSize);
+                advance.setString(2, SEQUENCE);
+                if (advance.executeUpdate() == 0) {
+                    try (PreparedStatement seed = conn.prepareStatement(seedSql)) {
+                        seed.setString(1, SEQUENCE);
+                        seed.executeUpdate();
+                    }
+                    advance.executeUpdate();
+                }
+            }
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT LAST_INSERT_ID()")) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * Round trip to reserve one block, in microseconds
+     */
+    public Histogram getReserveLatency() {
+        return reserveLatency;
+    }
+
+    public String getStatsSummary() {
+        return String.format("id allocator block=%d remaining=%d reservations=%d%n"
+                        + "  reserve: %s",
+                blockSize, getRemaining(), reserveLatency.getCount(), reserveLatency.describe("us"));
+    }
+}
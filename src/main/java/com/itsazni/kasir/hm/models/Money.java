@@ -0,0 +1,111 @@
+package com.itsazni.kasir.hm.models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Immutable rupiah amount held as a whole number of cents (1/100 rupiah),
+ * the same precision as the DECIMAL(12, 2) columns. Arithmetic is exact
+ * long arithmetic and throws ArithmeticException on overflow.
+ *
+ * Convert to and from BigDecimal only when reading or writing the database
+ * or the checkout journal.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private static final long CENTS_PER_RUPIAH = 100;
+    private static final long BASIS_POINTS_PER_UNIT = 10_000;
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    public static Money ofRupiah(long rupiah) {
+        return ofCents(Math.multiplyExact(rupiah, CENTS_PER_RUPIAH));
+    }
+
+    /**
+     * Amount rounded half up to whole cents; null is zero
+     */
+    public static Money of(BigDecimal amount) {
+        if (amount == null) return ZERO;
+        return ofCents(amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public Money plus(Money other) {
+        return other.cents == 0 ? this : ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return other.cents == 0 ? this : ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money times(int quantity) {
+        return quantity == 1 ? this : ofCents(Math.multiplyExact(cents, quantity));
+    }
+
+    /**
+     * Share of this amount given in basis points (percent with two decimals,
+     * 1250 = 12.50%), rounded half up to the cent. Equals
+     * amount * percent / 100 at scale 2 with RoundingMode.HALF_UP.
+     */
+    public Money percent(long basisPoints) {
+        long product = Math.multiplyExact(cents, basisPoints);
+        long result = product / BASIS_POINTS_PER_UNIT;
+        if (Math.abs(product % BASIS_POINTS_PER_UNIT) * 2 >= BASIS_POINTS_PER_UNIT) {
+            result += Long.signum(product);
+        }
+        return ofCents(result);
+    }
+
+    /**
+     * Percent rounded half up to two decimals, in basis points
+     */
+    public static long toBasisPoints(BigDecimal percent) {
+        if (percent == null) return 0;
+        return percent.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public int signum() {
+        return Long.signum(cents);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money && ((Money) o).cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    /**
+     * Plain decimal with two fraction digits, e.g. "15000.00"
+     */
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
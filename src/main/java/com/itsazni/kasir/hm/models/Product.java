@@ -1,6 +1,5 @@
 package com.itsazni.kasir.hm.models;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
@@ -11,19 +10,19 @@ public class Product {
     private String barcode;
     private String name;
     private String category;
-    private BigDecimal price;
+    private Money price;
     private int stock;
     private int minStock;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
     public Product() {
-        this.price = BigDecimal.ZERO;
+        this.price = Money.ZERO;
         this.stock = 0;
         this.minStock = 5;
     }
 
-    public Product(String barcode, String name, String category, BigDecimal price, int stock, int minStock) {
+    public Product(String barcode, String name, String category, Money price, int stock, int minStock) {
         this.barcode = barcode;
         this.name = name;
         this.category = category;
@@ -32,6 +31,18 @@ public class Product {
         this.minStock = minStock;
     }
 
+    public Product(Product other) {
+        this.id = other.id;
+        this.barcode = other.barcode;
+        this.name = other.name;
+        this.category = other.category;
+        this.price = other.price;
+        this.stock = other.stock;
+        this.minStock = other.minStock;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+    }
+
     // Getters and Setters
     public int getId() { return id; }
     public void setId(int id) { this.id = id; }
@@ -45,8 +56,8 @@ public class Product {
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
 
-    public BigDecimal getPrice() { return price; }
-    public void setPrice(BigDecimal price) { this.price = price; }
+    public Money getPrice() { return price; }
+    public void setPrice(Money price) { this.price = price; }
 
     public int getStock() { return stock; }
     public void setStock(int stock) { this.stock = stock; }
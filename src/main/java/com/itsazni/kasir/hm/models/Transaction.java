@@ -1,34 +1,49 @@
 package com.itsazni.kasir.hm.models;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Transaction model representing a complete sales transaction
+ * Transaction model representing a complete sales transaction.
+ *
+ * Cart changes made through addItem, removeItem and updateQuantity keep
+ * the totals up to date by the amount that changed, and look products up
+ * in an index instead of scanning the items, so they cost the same in a
+ * 300-line basket as in a 3-line one. Changes made to getItems() directly
+ * must be followed by calculateTotals().
+ *
+ * Amounts are Money; the discount is the subtotal times the discount
+ * percent held to two decimals, as stored in discount_percent, rounded
+ * half up to the cent.
  */
 public class Transaction {
     private int id;
+    private String clientRef;
     private int userId;
     private LocalDateTime transactionDate;
-    private BigDecimal subtotal;
+    private Money subtotal;
     private BigDecimal discountPercent;
-    private BigDecimal discountAmount;
-    private BigDecimal total;
-    private BigDecimal payment;
-    private BigDecimal changeAmount;
+    private long discountBasisPoints;
+    private Money discountAmount;
+    private Money total;
+    private Money payment;
+    private Money changeAmount;
     private List<TransactionItem> items;
+    // Position in items per product id
+    private final Map<Integer, Integer> itemIndex = new HashMap<>();
 
     public Transaction() {
         this.transactionDate = LocalDateTime.now();
-        this.subtotal = BigDecimal.ZERO;
+        this.subtotal = Money.ZERO;
         this.discountPercent = BigDecimal.ZERO;
-        this.discountAmount = BigDecimal.ZERO;
-        this.total = BigDecimal.ZERO;
-        this.payment = BigDecimal.ZERO;
-        this.changeAmount = BigDecimal.ZERO;
+        this.discountAmount = Money.ZERO;
+        this.total = Money.ZERO;
+        this.payment = Money.ZERO;
+        this.changeAmount = Money.ZERO;
         this.items = new ArrayList<>();
     }
 
@@ -36,35 +51,39 @@ public class Transaction {
     public int getId() { return id; }
     public void setId(int id) { this.id = id; }
 
+    public String getClientRef() { return clientRef; }
+    public void setClientRef(String clientRef) { this.clientRef = clientRef; }
+
     public int getUserId() { return userId; }
     public void setUserId(int userId) { this.userId = userId; }
 
     public LocalDateTime getTransactionDate() { return transactionDate; }
     public void setTransactionDate(LocalDateTime transactionDate) { this.transactionDate = transactionDate; }
 
-    public BigDecimal getSubtotal() { return subtotal; }
-    public void setSubtotal(BigDecimal subtotal) { this.subtotal = subtotal; }
+    public Money getSubtotal() { return subtotal; }
+    public void setSubtotal(Money subtotal) { this.subtotal = subtotal; }
 
     public BigDecimal getDiscountPercent() { return discountPercent; }
     public void setDiscountPercent(BigDecimal discountPercent) { 
         this.discountPercent = discountPercent;
-        calculateTotals();
+        this.discountBasisPoints = Money.toBasisPoints(discountPercent);
+        applyDiscount();
     }
 
-    public BigDecimal getDiscountAmount() { return discountAmount; }
-    public void setDiscountAmount(BigDecimal discountAmount) { this.discountAmount = discountAmount; }
+    public Money getDiscountAmount() { return discountAmount; }
+    public void setDiscountAmount(Money discountAmount) { this.discountAmount = discountAmount; }
 
-    public BigDecimal getTotal() { return total; }
-    public void setTotal(BigDecimal total) { this.total = total; }
+    public Money getTotal() { return total; }
+    public void setTotal(Money total) { this.total = total; }
 
-    public BigDecimal getPayment() { return payment; }
-    public void setPayment(BigDecimal payment) { 
+    public Money getPayment() { return payment; }
+    public void setPayment(Money payment) { 
         this.payment = payment;
         calculateChange();
     }
 
-    public BigDecimal getChangeAmount() { return changeAmount; }
-    public void setChangeAmount(BigDecimal changeAmount) { this.changeAmount = changeAmount; }
+    public Money getChangeAmount() { return changeAmount; }
+    public void setChangeAmount(Money changeAmount) { this.changeAmount = changeAmount; }
 
     public List<TransactionItem> getItems() { return items; }
     public void setItems(List<TransactionItem> items) { 
@@ -77,15 +96,18 @@ public class Transaction {
      */
     public void addItem(TransactionItem item) {
         // Check if product already exists in cart
-        for (TransactionItem existing : items) {
-            if (existing.getProductId() == item.getProductId()) {
-                existing.addQuantity(item.getQuantity());
-                calculateTotals();
-                return;
-            }
+        int index = indexOf(item.getProductId());
+        if (index >= 0) {
+            TransactionItem existing = items.get(index);
+            Money before = existing.getSubtotal();
+            existing.addQuantity(item.getQuantity());
+            subtotal = subtotal.plus(existing.getSubtotal()).minus(before);
+        } else {
+            itemIndex.put(item.getProductId(), items.size());
+            items.add(item);
+            subtotal = subtotal.plus(item.getSubtotal());
         }
-        items.add(item);
-        calculateTotals();
+        applyDiscount();
     }
 
     /**
@@ -93,11 +115,46 @@ public class Transaction {
      */
     public void removeItem(int index) {
         if (index >= 0 && index < items.size()) {
-            items.remove(index);
-            calculateTotals();
+            TransactionItem removed = items.remove(index);
+            itemIndex.remove(removed.getProductId());
+            for (int i = index; i < items.size(); i++) {
+                itemIndex.put(items.get(i).getProductId(), i);
+            }
+            subtotal = subtotal.minus(removed.getSubtotal());
+            applyDiscount();
         }
     }
 
+    /**
+     * Change the quantity of the item at index
+     */
+    public void updateQuantity(int index, int quantity) {
+        if (index >= 0 && index < items.size()) {
+            TransactionItem item = items.get(index);
+            Money before = item.getSubtotal();
+            item.setQuantity(quantity);
+            subtotal = subtotal.plus(item.getSubtotal()).minus(before);
+            applyDiscount();
+        }
+    }
+
+    /**
+     * Position of the item for a product, or -1 when it is not in the cart
+     */
+    public int indexOf(int productId) {
+        Integer index = itemIndex.get(productId);
+        if (index != null && index < items.size() && items.get(index).getProductId() == productId) {
+            return index;
+        }
+        if (itemIndex.size() != items.size()) {
+            // Items were changed through getItems(); index them again
+            rebuildIndex();
+            index = itemIndex.get(productId);
+            return index == null ? -1 : index;
+        }
+        return -1;
+    }
+
     /**
      * Clear all items
      */
@@ -107,37 +164,52 @@ public class Transaction {
     }
 
     /**
-     * Calculate subtotal, discount, and total
+     * Calculate subtotal, discount, and total from all items
      */
     public void calculateTotals() {
+        rebuildIndex();
+
         // Calculate subtotal
-        subtotal = BigDecimal.ZERO;
+        long cents = 0;
         for (TransactionItem item : items) {
-            subtotal = subtotal.add(item.getSubtotal());
+            cents = Math.addExact(cents, item.getSubtotal().getCents());
         }
+        subtotal = Money.ofCents(cents);
+        applyDiscount();
+    }
 
+    /**
+     * Discount and total from the current subtotal
+     */
+    private void applyDiscount() {
         // Calculate discount amount
-        if (discountPercent.compareTo(BigDecimal.ZERO) > 0) {
-            discountAmount = subtotal.multiply(discountPercent)
-                    .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+        if (discountBasisPoints > 0) {
+            discountAmount = subtotal.percent(discountBasisPoints);
         } else {
-            discountAmount = BigDecimal.ZERO;
+            discountAmount = Money.ZERO;
         }
 
         // Calculate total
-        total = subtotal.subtract(discountAmount);
+        total = subtotal.minus(discountAmount);
 
         // Recalculate change if payment was already made
-        if (payment.compareTo(BigDecimal.ZERO) > 0) {
+        if (payment.signum() > 0) {
             calculateChange();
         }
     }
 
+    private void rebuildIndex() {
+        itemIndex.clear();
+        for (int i = 0; i < items.size(); i++) {
+            itemIndex.putIfAbsent(items.get(i).getProductId(), i);
+        }
+    }
+
     /**
      * Calculate change amount
      */
     public void calculateChange() {
-        changeAmount = payment.subtract(total);
+        changeAmount = payment.minus(total);
     }
 
     /**
@@ -1,7 +1,5 @@
 package com.itsazni.kasir.hm.models;
 
-import java.math.BigDecimal;
-
 /**
  * TransactionItem model representing a single item in a transaction
  */
@@ -11,13 +9,13 @@ public class TransactionItem {
     private int productId;
     private String productName;
     private int quantity;
-    private BigDecimal price;
-    private BigDecimal subtotal;
+    private Money price;
+    private Money subtotal;
 
     public TransactionItem() {
         this.quantity = 1;
-        this.price = BigDecimal.ZERO;
-        this.subtotal = BigDecimal.ZERO;
+        this.price = Money.ZERO;
+        this.subtotal = Money.ZERO;
     }
 
     public TransactionItem(Product product, int quantity) {
@@ -47,20 +45,20 @@ public class TransactionItem {
         calculateSubtotal();
     }
 
-    public BigDecimal getPrice() { return price; }
-    public void setPrice(BigDecimal price) { 
+    public Money getPrice() { return price; }
+    public void setPrice(Money price) { 
         this.price = price;
         calculateSubtotal();
     }
 
-    public BigDecimal getSubtotal() { return subtotal; }
-    public void setSubtotal(BigDecimal subtotal) { this.subtotal = subtotal; }
+    public Money getSubtotal() { return subtotal; }
+    public void setSubtotal(Money subtotal) { this.subtotal = subtotal; }
 
     /**
      * Calculate subtotal based on quantity and price
      */
     public void calculateSubtotal() {
-        this.subtotal = price.multiply(BigDecimal.valueOf(quantity));
+        this.subtotal = price.times(quantity);
     }
 
     /**
@@ -273,7 +273,7 @@ public class BarcodeScannerDialog extends JDialog {
                 
                 // Set highest resolution available
                 if (currentWebcam.getViewSizes().length > 0) {
-                    currentWebcam.setViewSize(currentWebcam.getViewSizes()[currentWebcam.getViewSizes().length - 1]);
+                    currentWebcam.setViewSize(BarcodeScanner.preferredViewSize(currentWebcam));
                 }
                 
                 currentWebcam.open();
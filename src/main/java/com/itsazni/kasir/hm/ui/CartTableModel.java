@@ -0,0 +1,117 @@
+package com.itsazni.kasir.hm.ui;
+
+import com.itsazni.kasir.hm.models.Transaction;
+import com.itsazni.kasir.hm.models.TransactionItem;
+import com.itsazni.kasir.hm.utils.CurrencyUtils;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Cart table that shows the items of a transaction directly, without
+ * copying them into rows. Changes to the cart go through this model so
+ * that only the rows involved are repainted; cells are formatted when
+ * they are painted.
+ *
+ * Must be used on the EDT.
+ */
+public class CartTableModel extends AbstractTableModel {
+
+    public static final int COLUMN_QUANTITY = 2;
+    public static final int COLUMN_DELETE = 4;
+
+    private static final String[] COLUMNS = {"Produk", "Harga", "Qty", "Subtotal", ""};
+
+    private Transaction transaction;
+
+    public CartTableModel(Transaction transaction) {
+        this.transaction = transaction;
+    }
+
+    /**
+     * Show the items of another transaction
+     */
+    public void setTransaction(Transaction transaction) {
+        this.transaction = transaction;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Add item to the transaction; a product already in the cart has its
+     * row updated instead of a new row inserted
+     */
+    public void addItem(TransactionItem item) {
+        int oldSize = getRowCount();
+        transaction.addItem(item);
+        if (getRowCount() > oldSize) {
+            fireTableRowsInserted(oldSize, oldSize);
+        } else {
+            int row = transaction.indexOf(item.getProductId());
+            if (row >= 0) {
+                fireTableRowsUpdated(row, row);
+            }
+        }
+    }
+
+    public void removeItem(int row) {
+        if (row < 0 || row >= getRowCount()) return;
+        transaction.removeItem(row);
+        fireTableRowsDeleted(row, row);
+    }
+
+    public void clear() {
+        int oldSize = getRowCount();
+        transaction.clearItems();
+        if (oldSize > 0) {
+            fireTableRowsDeleted(0, oldSize - 1);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return transaction.getItems().size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return column == COLUMN_QUANTITY;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        TransactionItem item = transaction.getItems().get(row);
+        switch (column) {
+            case 0: return item.getProductName();
+            case 1: return CurrencyUtils.format(item.getPrice());
+            case 2: return item.getQuantity();
+            case 3: return CurrencyUtils.format(item.getSubtotal());
+            case 4: return "✕";
+            default: return null;
+        }
+    }
+
+    /**
+     * Quantity edits; anything but a positive number is ignored
+     */
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        if (column != COLUMN_QUANTITY || value == null) return;
+        try {
+            int quantity = Integer.parseInt(value.toString().trim());
+            if (quantity > 0 && quantity != transaction.getItems().get(row).getQuantity()) {
+                transaction.updateQuantity(row, quantity);
+                fireTableRowsUpdated(row, row);
+            }
+        } catch (NumberFormatException e) {
+            // Ignore invalid input
+        }
+    }
+}
@@ -19,7 +19,6 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Map;
 
 import static com.itsazni.kasir.hm.ui.UIConstants.*;
 
@@ -198,7 +197,8 @@ public class DashboardPanel extends JPanel {
             private int todayTransactions;
             private int totalProducts;
             private List<Product> lowStockProducts;
-            private Map<LocalDate, BigDecimal> dailySales;
+            private final LocalDate firstDay = LocalDate.now().minusDays(6);
+            private double[] dailySales;
             
             @Override
             protected Void doInBackground() {
@@ -206,7 +206,7 @@ public class DashboardPanel extends JPanel {
                 todayTransactions = transactionDAO.getTodayTransactionCount();
                 totalProducts = productDAO.findAll().size();
                 lowStockProducts = productDAO.findLowStock();
-                dailySales = transactionDAO.getDailySales(7);
+                dailySales = transactionDAO.getDailySalesSeries(firstDay, firstDay.plusDays(7));
                 return null;
             }
             
@@ -238,12 +238,9 @@ public class DashboardPanel extends JPanel {
                 DefaultCategoryDataset dataset = new DefaultCategoryDataset();
                 DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM");
                 
-                // Fill in missing days with 0
-                LocalDate today = LocalDate.now();
-                for (int i = 6; i >= 0; i--) {
-                    LocalDate date = today.minusDays(i);
-                    BigDecimal sales = dailySales.getOrDefault(date, BigDecimal.ZERO);
-                    dataset.addValue(sales.doubleValue(), "Penjualan", date.format(formatter));
+                // Series already has 0 for days without sales
+                for (int i = 0; i < dailySales.length; i++) {
+                    dataset.addValue(dailySales[i], "Penjualan", firstDay.plusDays(i).format(formatter));
                 }
                 
                 JFreeChart chart = createBarChart(dataset);
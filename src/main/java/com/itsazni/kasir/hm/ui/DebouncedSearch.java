@@ -0,0 +1,164 @@
+package com.itsazni.kasir.hm.ui;
+
+import com.itsazni.kasir.hm.utils.Histogram;
+import javax.swing.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs a search off the EDT once typing pauses.
+ *
+ * Every request restarts a Swing timer. When it fires, the query is handed to
+ * a single background thread and any query still queued is cancelled. A result
+ * is applied on the EDT only if no newer request was made in the meantime, so
+ * a slow query can never overwrite the list with stale results.
+ *
+ * All methods except the constructor must be called on the EDT.
+ */
+public class DebouncedSearch<T> {
+
+    // Shared across instances so they can be reported on exit
+    private static final Histogram RENDER_LATENCY = new Histogram();
+    private static final Histogram QUERY_LATENCY = new Histogram();
+    private static final LongAdder SUBMITTED = new LongAdder();
+    private static final LongAdder APPLIED = new LongAdder();
+
+    private final Function<String, T> search;
+    private final Consumer<T> onResult;
+    private final Timer timer;
+    private final ExecutorService executor;
+    private final AtomicLong generation = new AtomicLong();
+
+    private String pendingQuery = "";
+    private long pendingSince;
+    private Future<?> inFlight;
+
+    /**
+     * @param delayMs  quiet period after the last keystroke before searching
+     * @param search   query to run on the background thread
+     * @param onResult applies the newest result on the EDT
+     */
+    public DebouncedSearch(int delayMs, Function<String, T> search, Consumer<T> onResult) {
+        this.search = search;
+        this.onResult = onResult;
+        this.timer = new Timer(delayMs, e -> submit());
+        this.timer.setRepeats(false);
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "search-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Schedule a search for query after the debounce delay
+     */
+    public void request(String query) {
+        pendingQuery = query;
+        pendingSince = System.nanoTime();
+        // Results of anything already running are now stale
+        generation.incrementAndGet();
+        timer.restart();
+    }
+
+    /**
+     * Search for query immediately, skipping the debounce delay
+     */
+    public void requestNow(String query) {
+        pendingQuery = query;
+        pendingSince = System.nanoTime();
+        timer.stop();
+        submit();
+    }
+
+    /**
+     * Drop the pending search and ignore any result still on its way
+     */
+    public void cancel() {
+        timer.stop();
+        generation.incrementAndGet();
+        if (inFlight != null) {
+            inFlight.cancel(false);
+            inFlight = null;
+        }
+    }
+
+    /**
+     * Cancel pending work and stop the background thread
+     */
+    public void dispose() {
+        cancel();
+        executor.shutdown();
+    }
+
+    private void submit() {
+        final long ticket = generation.incrementAndGet();
+        final String query = pendingQuery;
+        final long since = pendingSince;
+
+        if (inFlight != null) {
+            inFlight.cancel(false);
+        }
+        SUBMITTED.increment();
+        inFlight = executor.submit(() -> {
+            if (ticket != generation.get()) return;
+
+            long start = System.nanoTime();
+            T result;
+            try {
+                result = search.apply(query);
+            } catch (RuntimeException e) {
+                System.err.println("Error searching '" + query + "': " + e.getMessage());
+                return;
+            }
+            QUERY_LATENCY.recordSince(start);
+
+            SwingUtilities.invokeLater(() -> {
+                if (ticket != generation.get()) return;
+                onResult.accept(result);
+                APPLIED.increment();
+                RENDER_LATENCY.recordSince(since);
+            });
+        });
+    }
+
+    // Metrics
+
+    /**
+     * Time from the last keystroke to the result being rendered, in microseconds
+     */
+    public static Histogram getRenderLatency() {
+        return RENDER_LATENCY;
+    }
+
+    /**
+     * Time spent running the query on the background thread, in microseconds
+     */
+    public static Histogram getQueryLatency() {
+        return QUERY_LATENCY;
+    }
+
+    public static long getSubmittedCount() {
+        return SUBMITTED.sum();
+    }
+
+    /**
+     * Searches whose result reached the screen; the rest were superseded
+     */
+    public static long getAppliedCount() {
+        return APPLIED.sum();
+    }
+
+    public static String getStatsSummary() {
+        return String.format("search submitted=%d applied=%d superseded=%d%n"
+                        + "  keystroke-to-render: %s%n"
+                        + "  query: %s",
+                getSubmittedCount(), getAppliedCount(), getSubmittedCount() - getAppliedCount(),
+                RENDER_LATENCY.describe("us"), QUERY_LATENCY.describe("us"));
+    }
+}
@@ -2,17 +2,20 @@ package com.itsazni.kasir.hm.ui;
 
 import com.github.sarxos.webcam.Webcam;
 import com.github.sarxos.webcam.WebcamPanel;
+import com.itsazni.kasir.hm.dao.CheckoutJournal;
+import com.itsazni.kasir.hm.dao.InsufficientStockException;
 import com.itsazni.kasir.hm.dao.ProductDAO;
 import com.itsazni.kasir.hm.dao.TransactionDAO;
+import com.itsazni.kasir.hm.models.Money;
 import com.itsazni.kasir.hm.models.Product;
 import com.itsazni.kasir.hm.models.Transaction;
 import com.itsazni.kasir.hm.models.TransactionItem;
 import com.itsazni.kasir.hm.models.User;
+import com.itsazni.kasir.hm.utils.AppConfig;
 import com.itsazni.kasir.hm.utils.BarcodeScanner;
 import com.itsazni.kasir.hm.utils.CurrencyUtils;
 import com.itsazni.kasir.hm.utils.ReceiptPrinter;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
 import java.math.BigDecimal;
@@ -25,6 +28,9 @@ import static com.itsazni.kasir.hm.ui.UIConstants.*;
  */
 public class POSPanel extends JPanel {
     
+    // Client property holding the amount a totals label currently shows
+    private static final String SHOWN_AMOUNT = "shownAmount";
+    
     private final User currentUser;
     private final ProductDAO productDAO;
     private final TransactionDAO transactionDAO;
@@ -32,12 +38,14 @@ public class POSPanel extends JPanel {
     
     // Cart table
     private JTable cartTable;
-    private DefaultTableModel cartTableModel;
+    private CartTableModel cartTableModel;
     
     // Product search
     private JTextField txtSearch;
     private JList<Product> productList;
-    private DefaultListModel<Product> productListModel;
+    private ProductListModel productListModel;
+    private final DebouncedSearch<List<Product>> productSearch;
+    private final ScannerInputDetector scannerInput;
     
     // Totals
     private JLabel lblSubtotal;
@@ -64,8 +72,20 @@ public class POSPanel extends JPanel {
         this.transactionDAO = new TransactionDAO();
         this.currentTransaction = new Transaction();
         currentTransaction.setUserId(user.getId());
+        this.productSearch = new DebouncedSearch<>(
+                AppConfig.getInstance().getIntProperty("search.debounceMs", 150),
+                this::queryProducts, this::showProducts);
+        this.scannerInput = new ScannerInputDetector(
+                AppConfig.getInstance().getLongProperty("scanner.wedge.maxIntervalMs", 30),
+                AppConfig.getInstance().getIntProperty("scanner.wedge.minLength", 4));
         initComponents();
     }
+
+    @Override
+    public void removeNotify() {
+        productSearch.dispose();
+        super.removeNotify();
+    }
     
     private void initComponents() {
         setLayout(new BorderLayout(12, 0));
@@ -205,17 +225,25 @@ public class POSPanel extends JPanel {
         // Search
         txtSearch = createTextField("Cari atau ketik barcode...");
         txtSearch.setPreferredSize(new Dimension(0, 40));
+        txtSearch.addKeyListener(scannerInput);
         txtSearch.addKeyListener(new java.awt.event.KeyAdapter() {
             @Override
             public void keyReleased(java.awt.event.KeyEvent e) {
                 if (e.getKeyCode() == java.awt.event.KeyEvent.VK_ENTER) {
                     String text = txtSearch.getText().trim();
+                    if (scannerInput.takeCompletedScan()) {
+                        addScannedBarcode(text);
+                        return;
+                    }
                     Product product = productDAO.findByBarcode(text);
                     if (product != null) {
                         addToCart(product);
                         txtSearch.setText("");
                         loadProducts();
                     }
+                } else if (scannerInput.isScanning()) {
+                    // Scanner burst: skip per-character searches
+                    productSearch.cancel();
                 } else {
                     searchProducts();
                 }
@@ -223,8 +251,15 @@ public class POSPanel extends JPanel {
         });
         
         // Product list
-        productListModel = new DefaultListModel<>();
-        productList = new JList<>(productListModel);
+        productListModel = new ProductListModel();
+        productList = new JList<>(productListModel) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                long start = System.nanoTime();
+                super.paintComponent(g);
+                ProductListModel.recordPaint(start);
+            }
+        };
         productList.setBackground(INPUT_BG);
         productList.setForeground(TEXT_COLOR);
         productList.setSelectionBackground(PRIMARY_COLOR);
@@ -274,13 +309,7 @@ public class POSPanel extends JPanel {
         panel.add(headerPanel, BorderLayout.NORTH);
         
         // Cart table
-        String[] columns = {"Produk", "Harga", "Qty", "Subtotal", ""};
-        cartTableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column == 2;
-            }
-        };
+        cartTableModel = new CartTableModel(currentTransaction);
         
         cartTable = new JTable(cartTableModel);
         styleTable(cartTable);
@@ -294,14 +323,13 @@ public class POSPanel extends JPanel {
         cartTable.getColumnModel().getColumn(4).setPreferredWidth(50);
         
         // Delete button column renderer
-        cartTable.getColumnModel().getColumn(4).setCellRenderer((table, value, isSelected, hasFocus, row, column) -> {
-            JButton btn = new JButton("✕");
-            btn.setBackground(DANGER_COLOR);
-            btn.setForeground(Color.WHITE);
-            btn.setFont(FONT_SMALL_BOLD);
-            btn.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
-            return btn;
-        });
+        JButton btnDelete = new JButton("✕");
+        btnDelete.setBackground(DANGER_COLOR);
+        btnDelete.setForeground(Color.WHITE);
+        btnDelete.setFont(FONT_SMALL_BOLD);
+        btnDelete.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
+        cartTable.getColumnModel().getColumn(CartTableModel.COLUMN_DELETE)
+                .setCellRenderer((table, value, isSelected, hasFocus, row, column) -> btnDelete);
         
         // Center align quantity column
         DefaultTableCellRenderer centerRenderer = new DefaultTableCellRenderer();
@@ -313,28 +341,14 @@ public class POSPanel extends JPanel {
             public void mouseClicked(java.awt.event.MouseEvent e) {
                 int column = cartTable.columnAtPoint(e.getPoint());
                 int row = cartTable.rowAtPoint(e.getPoint());
-                if (column == 4 && row >= 0) {
+                if (column == CartTableModel.COLUMN_DELETE && row >= 0) {
                     removeFromCart(row);
                 }
             }
         });
         
-        // Update quantity when edited
-        cartTableModel.addTableModelListener(e -> {
-            if (e.getColumn() == 2) {
-                int row = e.getFirstRow();
-                try {
-                    int newQty = Integer.parseInt(cartTableModel.getValueAt(row, 2).toString());
-                    if (newQty > 0) {
-                        currentTransaction.getItems().get(row).setQuantity(newQty);
-                        currentTransaction.calculateTotals();
-                        refreshCartDisplay();
-                    }
-                } catch (NumberFormatException ex) {
-                    // Ignore invalid input
-                }
-            }
-        });
+        // Every cart change, including quantity edits, may change the totals
+        cartTableModel.addTableModelListener(e -> updateTotals());
         
         JScrollPane scrollPane = createScrollPane(cartTable);
         panel.add(scrollPane, BorderLayout.CENTER);
@@ -523,7 +537,7 @@ public class POSPanel extends JPanel {
             protected Void doInBackground() {
                 currentWebcam = selectedItem.webcam;
                 if (currentWebcam.getViewSizes().length > 0) {
-                    currentWebcam.setViewSize(currentWebcam.getViewSizes()[currentWebcam.getViewSizes().length - 1]);
+                    currentWebcam.setViewSize(BarcodeScanner.preferredViewSize(currentWebcam));
                 }
                 currentWebcam.open();
                 return null;
@@ -622,25 +636,41 @@ public class POSPanel extends JPanel {
     // ==================== PRODUCT & CART METHODS ====================
     
     private void loadProducts() {
-        productListModel.clear();
-        for (Product p : productDAO.findAll()) {
-            if (p.getStock() > 0) {
-                productListModel.addElement(p);
-            }
-        }
+        productSearch.requestNow("");
     }
     
     private void searchProducts() {
-        String keyword = txtSearch.getText().trim();
-        productListModel.clear();
-        
-        List<Product> products = keyword.isEmpty() ? 
+        productSearch.request(txtSearch.getText().trim());
+    }
+    
+    /**
+     * Runs on the search worker thread
+     */
+    private List<Product> queryProducts(String keyword) {
+        List<Product> products = keyword.isEmpty() ?
                 productDAO.findAll() : productDAO.search(keyword);
-        
-        for (Product p : products) {
-            if (p.getStock() > 0) {
-                productListModel.addElement(p);
-            }
+        products.removeIf(p -> p.getStock() <= 0);
+        return products;
+    }
+    
+    private void showProducts(List<Product> products) {
+        productList.clearSelection();
+        productListModel.setProducts(products);
+    }
+
+    /**
+     * Handle a code typed by a keyboard-wedge scanner. The product list was
+     * never filtered by the burst, so it is left as it is.
+     */
+    private void addScannedBarcode(String barcode) {
+        Product product = productDAO.findByBarcode(barcode);
+        if (product != null) {
+            addToCart(product);
+            txtSearch.setText("");
+        } else {
+            Toolkit.getDefaultToolkit().beep();
+            lblLastScanned.setText("✗ Tidak ditemukan");
+            txtSearch.selectAll();
         }
     }
     
@@ -651,60 +681,54 @@ public class POSPanel extends JPanel {
         }
         
         // Check if already in cart
-        int currentQty = 0;
-        for (TransactionItem item : currentTransaction.getItems()) {
-            if (item.getProductId() == product.getId()) {
-                currentQty = item.getQuantity();
-                break;
-            }
-        }
+        int index = currentTransaction.indexOf(product.getId());
+        int currentQty = index >= 0 ? currentTransaction.getItems().get(index).getQuantity() : 0;
         
         if (currentQty >= product.getStock()) {
             JOptionPane.showMessageDialog(this, "Stok tidak mencukupi!");
             return;
         }
         
-        TransactionItem item = new TransactionItem(product, 1);
-        currentTransaction.addItem(item);
-        refreshCartDisplay();
+        cartTableModel.addItem(new TransactionItem(product, 1));
     }
     
     private void removeFromCart(int index) {
-        currentTransaction.removeItem(index);
-        refreshCartDisplay();
+        cartTableModel.removeItem(index);
     }
     
     private void clearCart() {
-        currentTransaction.clearItems();
         txtDiscount.setText("0");
         txtPayment.setText("");
-        refreshCartDisplay();
+        currentTransaction.setDiscountPercent(BigDecimal.ZERO);
+        cartTableModel.clear();
+        updateTotals();
     }
     
-    private void refreshCartDisplay() {
-        cartTableModel.setRowCount(0);
-        for (TransactionItem item : currentTransaction.getItems()) {
-            cartTableModel.addRow(new Object[]{
-                item.getProductName(),
-                CurrencyUtils.format(item.getPrice()),
-                item.getQuantity(),
-                CurrencyUtils.format(item.getSubtotal()),
-                "✕"
-            });
-        }
-        
-        lblSubtotal.setText(CurrencyUtils.format(currentTransaction.getSubtotal()));
-        lblDiscount.setText("- " + CurrencyUtils.format(currentTransaction.getDiscountAmount()));
-        lblTotal.setText(CurrencyUtils.format(currentTransaction.getTotal()));
+    private void updateTotals() {
+        setAmount(lblSubtotal, "", currentTransaction.getSubtotal());
+        setAmount(lblDiscount, "- ", currentTransaction.getDiscountAmount());
+        setAmount(lblTotal, "", currentTransaction.getTotal());
         calculateChange();
     }
     
+    /**
+     * Show amount in label, formatting it only when it differs from the
+     * amount shown already
+     */
+    private static void setAmount(JLabel label, String prefix, Money amount) {
+        if (amount.equals(label.getClientProperty(SHOWN_AMOUNT))) {
+            return;
+        }
+        label.putClientProperty(SHOWN_AMOUNT, amount);
+        label.setText(prefix + CurrencyUtils.format(amount));
+    }
+    
     private void applyDiscount() {
         try {
             BigDecimal discount = new BigDecimal(txtDiscount.getText().trim());
             if (discount.compareTo(BigDecimal.ZERO) >= 0 && discount.compareTo(new BigDecimal(100)) <= 0) {
                 currentTransaction.setDiscountPercent(discount);
-                refreshCartDisplay();
+                updateTotals();
             }
         } catch (NumberFormatException e) {
             // Ignore
@@ -713,18 +737,19 @@ public class POSPanel extends JPanel {
     
     private void calculateChange() {
         try {
-            BigDecimal payment = CurrencyUtils.parse(txtPayment.getText());
+            Money payment = CurrencyUtils.parseMoney(txtPayment.getText());
             currentTransaction.setPayment(payment);
             
-            BigDecimal change = currentTransaction.getChangeAmount();
-            lblChange.setText(CurrencyUtils.format(change));
+            Money change = currentTransaction.getChangeAmount();
+            setAmount(lblChange, "", change);
             
-            if (change.compareTo(BigDecimal.ZERO) >= 0) {
+            if (change.signum() >= 0) {
                 lblChange.setForeground(SUCCESS_COLOR);
             } else {
                 lblChange.setForeground(DANGER_COLOR);
             }
         } catch (Exception e) {
+            lblChange.putClientProperty(SHOWN_AMOUNT, null);
             lblChange.setText("Rp 0");
             lblChange.setForeground(TEXT_COLOR);
         }
@@ -742,7 +767,14 @@ public class POSPanel extends JPanel {
         }
         
         // Save transaction
-        if (transactionDAO.save(currentTransaction)) {
+        boolean saved;
+        try {
+            saved = saveTransaction(currentTransaction);
+        } catch (InsufficientStockException e) {
+            showInsufficientStock(e);
+            return;
+        }
+        if (saved) {
             // Show receipt
             ReceiptPrinter printer = new ReceiptPrinter(currentTransaction, currentUser.getFullName());
             printer.showPreview((JFrame) SwingUtilities.getWindowAncestor(this));
@@ -750,6 +782,7 @@ public class POSPanel extends JPanel {
             // Reset
             currentTransaction = new Transaction();
             currentTransaction.setUserId(currentUser.getId());
+            cartTableModel.setTransaction(currentTransaction);
             clearCart();
             loadProducts();
             
@@ -759,6 +792,37 @@ public class POSPanel extends JPanel {
         }
     }
     
+    /**
+     * List the products that are short and their remaining stock
+     */
+    private void showInsufficientStock(InsufficientStockException e) {
+        StringBuilder message = new StringBuilder("Stok tidak cukup untuk produk berikut:\n");
+        for (TransactionItem item : e.getShortItems()) {
+            message.append("\n- ").append(item.getProductName())
+                    .append(": diminta ").append(item.getQuantity())
+                    .append(", tersedia ").append(e.getAvailable(item.getProductId()));
+        }
+        JOptionPane.showMessageDialog(this, message.toString(), "Stok Tidak Cukup", JOptionPane.WARNING_MESSAGE);
+    }
+    
+    /**
+     * Commit the sale to the local journal, or straight to the database when
+     * the journal is disabled or cannot be written
+     */
+    private boolean saveTransaction(Transaction transaction) throws InsufficientStockException {
+        CheckoutJournal journal = CheckoutJournal.getInstance();
+        if (journal.isEnabled()) {
+            try {
+                journal.append(transaction);
+                return true;
+            } catch (java.io.IOException e) {
+                // Nothing was journaled; the client ref still guards against a second insert
+                System.err.println("Error writing checkout journal: " + e.getMessage());
+            }
+        }
+        return transactionDAO.save(transaction);
+    }
+    
     // ==================== INNER CLASSES ====================
     
     /**
@@ -782,32 +846,35 @@ public class POSPanel extends JPanel {
     }
     
     /**
-     * Custom cell renderer for product list
+     * Renders every product cell with the same component tree; only texts
+     * and colors change per cell
      */
-    private class ProductListCellRenderer extends DefaultListCellRenderer {
-        @Override
-        public Component getListCellRendererComponent(JList<?> list, Object value, 
-                int index, boolean isSelected, boolean cellHasFocus) {
-            
-            JPanel panel = new JPanel(new BorderLayout(10, 0));
-            panel.setBackground(isSelected ? PRIMARY_COLOR : INPUT_BG);
+    private static class ProductListCellRenderer implements ListCellRenderer<Product> {
+        private final JPanel panel = new JPanel(new BorderLayout(10, 0));
+        private final JPanel infoPanel = new JPanel(new BorderLayout());
+        private final JLabel lblName = createLabel("", FONT_BODY, TEXT_COLOR);
+        private final JLabel lblPrice = createLabel("", FONT_BODY_BOLD, SUCCESS_COLOR);
+        private final JLabel lblStock = createLabel("", FONT_CAPTION, TEXT_SECONDARY);
+        
+        ProductListCellRenderer() {
             panel.setBorder(BorderFactory.createEmptyBorder(10, 12, 10, 12));
-            
-            Product product = (Product) value;
-            
-            JLabel lblName = createLabel(product.getName(), FONT_BODY, TEXT_COLOR);
-            
-            JLabel lblPrice = createLabel(CurrencyUtils.format(product.getPrice()), FONT_BODY_BOLD, SUCCESS_COLOR);
-            
-            JLabel lblStock = createLabel("Stok: " + product.getStock(), FONT_CAPTION, TEXT_SECONDARY);
-            
-            JPanel infoPanel = new JPanel(new BorderLayout());
-            infoPanel.setBackground(panel.getBackground());
             infoPanel.add(lblName, BorderLayout.NORTH);
             infoPanel.add(lblStock, BorderLayout.SOUTH);
-            
             panel.add(infoPanel, BorderLayout.CENTER);
             panel.add(lblPrice, BorderLayout.EAST);
+        }
+        
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Product> list, Product product,
+                int index, boolean isSelected, boolean cellHasFocus) {
+            
+            Color background = isSelected ? PRIMARY_COLOR : INPUT_BG;
+            panel.setBackground(background);
+            infoPanel.setBackground(background);
+            
+            lblName.setText(product.getName());
+            lblPrice.setText(CurrencyUtils.format(product.getPrice()));
+            lblStock.setText("Stok: " + product.getStock());
             
             return panel;
         }
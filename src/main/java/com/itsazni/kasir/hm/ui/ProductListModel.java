@@ -0,0 +1,63 @@
+package com.itsazni.kasir.hm.ui;
+
+import com.itsazni.kasir.hm.models.Product;
+import com.itsazni.kasir.hm.utils.Histogram;
+import javax.swing.*;
+import java.util.List;
+
+/**
+ * Read-only list model over an array of products. The content is replaced
+ * as a whole by setProducts, which fires a single contentsChanged event
+ * instead of one event per removed and added row.
+ *
+ * Must be used on the EDT.
+ */
+public class ProductListModel extends AbstractListModel<Product> {
+
+    // Shared across instances so they can be reported on exit
+    private static final Histogram REFILL_LATENCY = new Histogram();
+    private static final Histogram PAINT_LATENCY = new Histogram();
+
+    private static final Product[] EMPTY = new Product[0];
+
+    private Product[] products = EMPTY;
+
+    /**
+     * Replace the content with products
+     */
+    public void setProducts(List<Product> products) {
+        long start = System.nanoTime();
+        int oldSize = this.products.length;
+        this.products = products.toArray(EMPTY);
+        int last = Math.max(oldSize, this.products.length) - 1;
+        if (last >= 0) {
+            fireContentsChanged(this, 0, last);
+        }
+        REFILL_LATENCY.recordSince(start);
+    }
+
+    @Override
+    public int getSize() {
+        return products.length;
+    }
+
+    @Override
+    public Product getElementAt(int index) {
+        return products[index];
+    }
+
+    /**
+     * Record one paint of a list showing this model, started at startNanos
+     */
+    public static void recordPaint(long startNanos) {
+        PAINT_LATENCY.recordSince(startNanos);
+    }
+
+    public static String getStatsSummary() {
+        return String.format("product list refills=%d paints=%d%n"
+                        + "  refill: %s%n"
+                        + "  paint: %s",
+                REFILL_LATENCY.getCount(), PAINT_LATENCY.getCount(),
+                REFILL_LATENCY.describe("us"), PAINT_LATENCY.describe("us"));
+    }
+}
@@ -1,6 +1,7 @@
 package com.itsazni.kasir.hm.ui;
 
 import com.itsazni.kasir.hm.dao.ProductDAO;
+import com.itsazni.kasir.hm.models.Money;
 import com.itsazni.kasir.hm.models.Product;
 import com.itsazni.kasir.hm.utils.BarcodeScanner;
 import com.itsazni.kasir.hm.utils.CurrencyUtils;
@@ -356,7 +357,7 @@ public class ProductManagementPanel extends JPanel {
             product.setBarcode(barcode);
             product.setName(name);
             product.setCategory(category);
-            product.setPrice(price);
+            product.setPrice(Money.of(price));
             product.setStock(stock);
             product.setMinStock(minStock);
             
@@ -0,0 +1,113 @@
+package com.itsazni.kasir.hm.ui;
+
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tells keyboard-wedge barcode scanners apart from a person typing.
+ *
+ * A USB scanner "types" the whole code in a few milliseconds per character
+ * and finishes with Enter. Characters that arrive within maxIntervalMs of each
+ * other form a burst; once a burst reaches minLength characters the input is
+ * treated as a scan, and an Enter that closes such a burst completes it.
+ *
+ * Add it as a KeyListener on the text field before the field's own listeners
+ * so the state is current by the time keyReleased is handled.
+ */
+public class ScannerInputDetector extends KeyAdapter {
+
+    private static final long WINDOW_MS = 60_000;
+
+    // Shared across instances so they can be reported on exit
+    private static final LongAdder SCANS = new LongAdder();
+    private static final ArrayDeque<Long> RECENT_SCANS = new ArrayDeque<>();
+    private static int peakPerMinute;
+
+    private final long maxIntervalMs;
+    private final int minLength;
+
+    private long lastKeyAt = Long.MIN_VALUE / 2;
+    private int burstLength;
+    private boolean scanCompleted;
+
+    public ScannerInputDetector(long maxIntervalMs, int minLength) {
+        this.maxIntervalMs = maxIntervalMs;
+        this.minLength = minLength;
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e) {
+        long when = e.getWhen();
+        boolean fast = when - lastKeyAt <= maxIntervalMs;
+        lastKeyAt = when;
+        scanCompleted = false;
+
+        char c = e.getKeyChar();
+        if (c == '\n' || c == '\r') {
+            if (fast && burstLength >= minLength) {
+                scanCompleted = true;
+                recordScan(when);
+            }
+            burstLength = 0;
+        } else if (Character.isISOControl(c)) {
+            // Backspace, Escape and friends only come from a person
+            burstLength = 0;
+        } else {
+            burstLength = fast ? burstLength + 1 : 1;
+        }
+    }
+
+    /**
+     * True while the characters being typed look like a scanner burst
+     */
+    public boolean isScanning() {
+        return burstLength >= minLength;
+    }
+
+    /**
+     * True once if the last Enter ended a scanner burst
+     */
+    public boolean takeCompletedScan() {
+        boolean completed = scanCompleted;
+        scanCompleted = false;
+        return completed;
+    }
+
+    private static synchronized void recordScan(long when) {
+        SCANS.increment();
+        RECENT_SCANS.addLast(when);
+        evictOlderThan(when - WINDOW_MS);
+        peakPerMinute = Math.max(peakPerMinute, RECENT_SCANS.size());
+    }
+
+    private static void evictOlderThan(long cutoff) {
+        while (!RECENT_SCANS.isEmpty() && RECENT_SCANS.peekFirst() < cutoff) {
+            RECENT_SCANS.removeFirst();
+        }
+    }
+
+    // Metrics
+
+    public static long getScanCount() {
+        return SCANS.sum();
+    }
+
+    /**
+     * Scans completed during the last minute
+     */
+    public static synchronized int getScansPerMinute() {
+        evictOlderThan(System.currentTimeMillis() - WINDOW_MS);
+        return RECENT_SCANS.size();
+    }
+
+    public static synchronized int getPeakScansPerMinute() {
+        return peakPerMinute;
+    }
+
+    public static String getStatsSummary() {
+        return String.format("wedge scanner scans=%d last-minute=%d peak-per-minute=%d",
+                getScanCount(), getScansPerMinute(), getPeakScansPerMinute());
+    }
+}
@@ -1,8 +1,10 @@
 package com.itsazni.kasir.hm.ui;
 
+import com.itsazni.kasir.hm.dao.TransactionCsvExporter;
 import com.itsazni.kasir.hm.dao.TransactionDAO;
 import com.itsazni.kasir.hm.models.Transaction;
 import com.itsazni.kasir.hm.models.TransactionItem;
+import com.itsazni.kasir.hm.utils.AppConfig;
 import com.itsazni.kasir.hm.utils.CurrencyUtils;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
@@ -14,11 +16,8 @@ import org.jfree.data.category.DefaultCategoryDataset;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
-import java.util.Map;
 
 import static com.itsazni.kasir.hm.ui.UIConstants.*;
 
@@ -30,7 +29,7 @@ public class TransactionHistoryPanel extends JPanel {
     private final TransactionDAO transactionDAO;
     
     private JTable transactionTable;
-    private DefaultTableModel tableModel;
+    private TransactionTableModel tableModel;
     private JSpinner dateFrom;
     private JSpinner dateTo;
     private ChartPanel chartPanel;
@@ -45,6 +44,12 @@ public class TransactionHistoryPanel extends JPanel {
         initComponents();
     }
     
+    @Override
+    public void removeNotify() {
+        tableModel.dispose();
+        super.removeNotify();
+    }
+    
     private void initComponents() {
         setLayout(new BorderLayout(15, 15));
         setBackground(BG_COLOR);
@@ -101,13 +106,9 @@ public class TransactionHistoryPanel extends JPanel {
         leftPanel.add(lblTableTitle, BorderLayout.NORTH);
         
         // Transaction table
-        String[] columns = {"ID", "Tanggal", "Total Item", "Subtotal", "Diskon", "Total", "Bayar", "Kembali"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new TransactionTableModel(transactionDAO,
+                AppConfig.getInstance().getIntProperty("history.pageSize", 100),
+                AppConfig.getInstance().getIntProperty("history.cachePages", 8));
         
         transactionTable = new JTable(tableModel);
         styleTable(transactionTable);
@@ -246,98 +247,155 @@ public class TransactionHistoryPanel extends JPanel {
         LocalDate from = new java.sql.Date(fromDate.getTime()).toLocalDate();
         LocalDate to = new java.sql.Date(toDate.getTime()).toLocalDate();
         
-        List<Transaction> transactions = transactionDAO.findByDateRange(from, to);
-        loadTransactions(transactions);
+        // Rows are fetched page by page as they scroll into view
+        tableModel.load(from, to);
         
         // Update chart
         updateChart(from, to);
     }
     
-    private void loadTransactions(List<Transaction> transactions) {
-        tableModel.setRowCount(0);
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-        
-        for (Transaction t : transactions) {
-            tableModel.addRow(new Object[]{
-                t.getId(),
-                t.getTransactionDate().format(formatter),
-                t.getTotalItems(),
-                CurrencyUtils.format(t.getSubtotal()),
-                CurrencyUtils.format(t.getDiscountAmount()),
-                CurrencyUtils.format(t.getTotal()),
-                CurrencyUtils.format(t.getPayment()),
-                CurrencyUtils.format(t.getChangeAmount())
-            });
-        }
-    }
-    
     private void showTransactionDetail() {
         int selectedRow = transactionTable.getSelectedRow();
         if (selectedRow >= 0) {
-            int transactionId = (int) tableModel.getValueAt(selectedRow, 0);
-            Transaction transaction = transactionDAO.findById(transactionId);
+            // Pages are loaded with their items
+            Transaction transaction = tableModel.getTransactionAt(selectedRow);
+            itemsTableModel.setRowCount(0);
             
             if (transaction != null) {
-                itemsTableModel.setRowCount(0);
-                for (TransactionItem item : transaction.getItems()) {
-                    itemsTableModel.addRow(new Object[]{
-                        item.getProductName(),
-                        CurrencyUtils.format(item.getPrice()),
-                        item.getQuantity(),
-                        CurrencyUtils.format(item.getSubtotal())
-                    });
-                }
+                showItems(transaction);
+            } else {
+                // Page not in memory (still loading or evicted); look the row up on its own
+                tableModel.fetchTransactionAt(selectedRow, fetched -> {
+                    if (fetched != null && transactionTable.getSelectedRow() == selectedRow) {
+                        itemsTableModel.setRowCount(0);
+                        showItems(fetched);
+                    }
+                });
             }
         }
     }
     
-    private void updateChart(LocalDate from, LocalDate to) {
-        // Calculate days between
-        long days = java.time.temporal.ChronoUnit.DAYS.between(from, to) + 1;
-        Map<LocalDate, BigDecimal> dailySales = transactionDAO.getDailySales((int) days);
-        
-        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM");
-        
-        LocalDate current = from;
-        while (!current.isAfter(to)) {
-            BigDecimal sales = dailySales.getOrDefault(current, BigDecimal.ZERO);
-            dataset.addValue(sales.doubleValue(), "Penjualan", current.format(formatter));
-            current = current.plusDays(1);
+    private void showItems(Transaction transaction) {
+        for (TransactionItem item : transaction.getItems()) {
+            itemsTableModel.addRow(new Object[]{
+                item.getProductName(),
+                CurrencyUtils.format(item.getPrice()),
+                item.getQuantity(),
+                CurrencyUtils.format(item.getSubtotal())
+            });
         }
-        
-        JFreeChart chart = createLineChart(dataset);
-        chartPanel.setChart(chart);
+    }
+    
+    private void updateChart(LocalDate from, LocalDate to) {
+        SwingWorker<DefaultCategoryDataset, Void> worker = new SwingWorker<>() {
+            @Override
+            protected DefaultCategoryDataset doInBackground() {
+                double[] dailySales = transactionDAO.getDailySalesSeries(from, to.plusDays(1));
+                
+                // Include the year once the range crosses one, so labels stay unique
+                DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+                DateTimeFormatter formatter = DateTimeFormatter.ofPattern(
+                        from.getYear() == to.getYear() ? "dd/MM" : "dd/MM/yy");
+                for (int i = 0; i < dailySales.length; i++) {
+                    dataset.addValue(dailySales[i], "Penjualan", from.plusDays(i).format(formatter));
+                }
+                return dataset;
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    chartPanel.setChart(createLineChart(get()));
+                } catch (Exception e) {
+                    System.err.println("Error updating sales chart: " + e.getMessage());
+                }
+            }
+        };
+        worker.execute();
     }
     
     private void exportToCSV() {
+        java.util.Date fromDate = (java.util.Date) dateFrom.getValue();
+        java.util.Date toDate = (java.util.Date) dateTo.getValue();
+        LocalDate from = new java.sql.Date(fromDate.getTime()).toLocalDate();
+        LocalDate to = new java.sql.Date(toDate.getTime()).toLocalDate();
+        
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Export to CSV");
         fileChooser.setSelectedFile(new java.io.File("transactions_" + 
-                LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".csv"));
+                from.format(DateTimeFormatter.ofPattern("yyyyMMdd")) + "_" +
+                to.format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".csv"));
         
-        if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
-            try (java.io.PrintWriter writer = new java.io.PrintWriter(fileChooser.getSelectedFile())) {
-                // Header
-                writer.println("ID,Tanggal,Total Item,Subtotal,Diskon,Total,Bayar,Kembali");
-                
-                // Data
-                for (int i = 0; i < tableModel.getRowCount(); i++) {
-                    StringBuilder line = new StringBuilder();
-                    for (int j = 0; j < tableModel.getColumnCount(); j++) {
-                        if (j > 0) line.append(",");
-                        Object value = tableModel.getValueAt(i, j);
-                        line.append("\"").append(value != null ? value.toString() : "").append("\"");
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        java.io.File file = fileChooser.getSelectedFile();
+        ProgressMonitor monitor = new ProgressMonitor(this, "Export transaksi ke CSV", "Menyiapkan...", 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+        
+        // Streams from the database on a background thread; the table is not used
+        SwingWorker<Long, Void> worker = new SwingWorker<>() {
+            private boolean cancelled;
+            
+            /**
+             * Writes to a temporary file next to the chosen one and moves it
+             * into place only when complete, so a cancelled or failed export
+             * leaves no truncated CSV behind
+             */
+            @Override
+            protected Long doInBackground() throws Exception {
+                java.nio.file.Path target = file.toPath().toAbsolutePath();
+                java.nio.file.Path temp = java.nio.file.Files.createTempFile(
+                        target.getParent(), target.getFileName().toString(), ".part");
+                try {
+                    long count;
+                    try (java.io.Writer writer = java.nio.file.Files.newBufferedWriter(temp)) {
+                        count = new TransactionCsvExporter().export(from, to, writer, new TransactionCsvExporter.Progress() {
+                            @Override
+                            public void update(long transactions, long total) {
+                                SwingUtilities.invokeLater(() -> {
+                                    monitor.setNote(transactions + " dari " + total + " transaksi");
+                                    monitor.setProgress(total > 0 ? (int) Math.min(99, transactions * 100 / total) : 0);
+                                });
+                            }
+
+                            @Override
+                            public boolean isCancelled() {
+                                return monitor.isCanceled();
+                            }
+                        });
                     }
-                    writer.println(line.toString());
+                    cancelled = monitor.isCanceled();
+                    if (!cancelled) {
+                        java.nio.file.Files.move(temp, target, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    return count;
+                } finally {
+                    java.nio.file.Files.deleteIfExists(temp);
                 }
-                
-                JOptionPane.showMessageDialog(this, "Export berhasil!", 
-                        "Sukses", JOptionPane.INFORMATION_MESSAGE);
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(this, "Gagal export: " + e.getMessage(), 
-                        "Error", JOptionPane.ERROR_MESSAGE);
             }
-        }
+            
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    long count = get();
+                    if (cancelled) {
+                        JOptionPane.showMessageDialog(TransactionHistoryPanel.this,
+                                "Export dibatalkan setelah " + count + " transaksi.",
+                                "Dibatalkan", JOptionPane.WARNING_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(TransactionHistoryPanel.this,
+                                "Export berhasil! " + count + " transaksi.",
+                                "Sukses", JOptionPane.INFORMATION_MESSAGE);
+                    }
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(TransactionHistoryPanel.this, "Gagal export: " + cause.getMessage(), 
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.execute();
     }
 }
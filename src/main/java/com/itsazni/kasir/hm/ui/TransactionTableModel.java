@@ -0,0 +1,219 @@
+package com.itsazni.kasir.hm.ui;
+
+import com.itsazni.kasir.hm.dao.TransactionDAO;
+import com.itsazni.kasir.hm.models.Transaction;
+import com.itsazni.kasir.hm.utils.CurrencyUtils;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Transaction history table that loads rows a page at a time as they are
+ * shown.
+ *
+ * Pages are fetched on a background thread with keyset pagination on
+ * (transaction_date, id), newest first, and kept in a small LRU cache; the
+ * page after the one being shown is prefetched. Only the last key of every page
+ * seen so far is remembered, so memory stays flat however long the range is.
+ * Rows not loaded yet show as empty until their page arrives.
+ *
+ * All methods except the constructor must be called on the EDT.
+ */
+public class TransactionTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMNS = {"ID", "Tanggal", "Total Item", "Subtotal", "Diskon", "Total", "Bayar", "Kembali"};
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private final TransactionDAO transactionDAO;
+    private final int pageSize;
+    private final int maxPages;
+    private final ExecutorService executor;
+
+    private LocalDate from;
+    private LocalDate to;
+    private int rowCount;
+    private long generation;
+
+    private final LinkedHashMap<Integer, List<Transaction>> pages;
+    private final Map<Integer, Transaction> lastKeys = new HashMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+
+    /**
+     * @param pageSize rows fetched per query
+     * @param maxPages pages kept in memory; at least 3, since a viewport
+     *        straddling two pages plus the prefetched page would otherwise
+     *        evict each other and reload forever
+     */
+    public TransactionTableModel(TransactionDAO transactionDAO, int pageSize, int maxPages) {
+        this.transactionDAO = transactionDAO;
+        this.pageSize = Math.max(1, pageSize);
+        this.maxPages = Math.max(3, maxPages);
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Transaction>> eldest) {
+                return size() > TransactionTableModel.this.maxPages;
+            }
+        };
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "history-loader");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Show transactions dated from..to (inclusive). The row count is looked
+     * up in the background and the first page is loaded right after it.
+     */
+    public void load(LocalDate from, LocalDate to) {
+        long current = ++generation;
+        this.from = from;
+        this.to = to;
+        rowCount = 0;
+        pages.clear();
+        lastKeys.clear();
+        loading.clear();
+        fireTableDataChanged();
+
+        executor.submit(() -> {
+            int count = transactionDAO.countByDateRange(from, to);
+            SwingUtilities.invokeLater(() -> {
+                if (current != generation) return;
+                rowCount = count;
+                fireTableDataChanged();
+                requestPage(0);
+            });
+        });
+    }
+
+    /**
+     * Transaction shown in row, with its items, or null while its page loads
+     */
+    public Transaction getTransactionAt(int row) {
+        int pageIndex = row / pageSize;
+        List<Transaction> page = pages.get(pageIndex);
+        if (page == null) {
+            requestPage(pageIndex);
+            return null;
+        }
+        // Scrolling usually continues downwards; keep the next page ready
+        requestPage(pageIndex + 1);
+        int index = row % pageSize;
+        return index < page.size() ? page.get(index) : null;
+    }
+
+    /**
+     * Look up the transaction in row with its items even when its page is
+     * not in memory, and pass it to callback on the EDT. Nothing is passed
+     * if the range is reloaded meanwhile; null is passed if it is gone.
+     */
+    public void fetchTransactionAt(int row, Consumer<Transaction> callback) {
+        long current = generation;
+        LocalDate rangeFrom = from;
+        LocalDate rangeTo = to;
+
+        executor.submit(() -> {
+            Transaction key = transactionDAO.findKeyAt(rangeFrom, rangeTo, row);
+            Transaction transaction = key == null ? null : transactionDAO.findById(key.getId());
+            SwingUtilities.invokeLater(() -> {
+                if (current == generation) {
+                    callback.accept(transaction);
+                }
+            });
+        });
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Transaction t = getTransactionAt(row);
+        if (t == null) return null;
+        switch (column) {
+            case 0: return t.getId();
+            case 1: return t.getTransactionDate().format(DATE_FORMAT);
+            case 2: return t.getTotalItems();
+            case 3: return CurrencyUtils.format(t.getSubtotal());
+            case 4: return CurrencyUtils.format(t.getDiscountAmount());
+            case 5: return CurrencyUtils.format(t.getTotal());
+            case 6: return CurrencyUtils.format(t.getPayment());
+            case 7: return CurrencyUtils.format(t.getChangeAmount());
+            default: return null;
+        }
+    }
+
+    /**
+     * Stop the loader thread; the model is unusable afterwards
+     */
+    public void dispose() {
+        generation++;
+        executor.shutdownNow();
+    }
+
+    private void requestPage(int page) {
+        if (page < 0 || page * pageSize >= rowCount || pages.containsKey(page) || !loading.add(page)) {
+            return;
+        }
+
+        long current = generation;
+        LocalDate rangeFrom = from;
+        LocalDate rangeTo = to;
+        Transaction after = page == 0 ? null : lastKeys.get(page - 1);
+
+        executor.submit(() -> {
+            Transaction start = after;
+            if (page > 0 && start == null) {
+                // Jumped past pages not loaded yet; find the key before this page on the index
+                start = transactionDAO.findKeyAt(rangeFrom, rangeTo, page * pageSize - 1);
+            }
+            List<Transaction> rows = page > 0 && start == null
+                    ? List.of()
+                    : transactionDAO.findPageByDateRange(rangeFrom, rangeTo,
+                            start == null ? null : start.getTransactionDate(),
+                            start == null ? 0 : start.getId(), pageSize);
+            SwingUtilities.invokeLater(() -> pageLoaded(current, page, rows));
+        });
+    }
+
+    private void pageLoaded(long current, int page, List<Transaction> rows) {
+        if (current != generation) return;
+        loading.remove(page);
+        pages.put(page, rows);
+        if (!rows.isEmpty()) {
+            Transaction last = rows.get(rows.size() - 1);
+            Transaction key = new Transaction();
+            key.setId(last.getId());
+            key.setTransactionDate(last.getTransactionDate());
+            lastKeys.put(page, key);
+        }
+
+        int first = page * pageSize;
+        int lastRow = Math.min(first + pageSize, rowCount) - 1;
+        if (lastRow >= first) {
+            fireTableRowsUpdated(first, lastRow);
+        }
+    }
+}
@@ -73,6 +73,14 @@ public class AppConfig {
         }
     }
     
+    /**
+     * Folder holding config.properties, used for other local files too
+     */
+    public Path getDataDirectory() {
+        Path parent = getConfigPath().toAbsolutePath().getParent();
+        return parent != null ? parent : Paths.get(".");
+    }
+    
     public String getDbHost() {
         return properties.getProperty("db.host", DEFAULT_DB_HOST);
     }
@@ -94,7 +102,14 @@ public class AppConfig {
     }
     
     public String getDbUrl() {
-        return String.format("jdbc:mysql://%s:%s/%s", getDbHost(), getDbPort(), getDbName());
+        // Send item batches as multi-row INSERTs instead of one round trip per row
+        String url = String.format("jdbc:mysql://%s:%s/%s?rewriteBatchedStatements=true",
+                getDbHost(), getDbPort(), getDbName());
+        if (isServerPrepStmts()) {
+            // Parse each statement once on the server; the pool keeps the handles open
+            url += "&useServerPrepStmts=true";
+        }
+        return url;
     }
     
     public String getAppName() {
@@ -112,4 +127,85 @@ public class AppConfig {
     public String getProperty(String key, String defaultValue) {
         return properties.getProperty(key, defaultValue);
     }
+
+    public int getIntProperty(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Nilai config tidak valid untuk " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    public long getLongProperty(String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) return defaultValue;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Nilai config tidak valid untuk " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    public boolean getBooleanProperty(String key, boolean defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    // Connection pool settings
+
+    public int getPoolMaxSize() {
+        return getIntProperty("db.pool.maxSize", 8);
+    }
+
+    public int getPoolMinIdle() {
+        return getIntProperty("db.pool.minIdle", 2);
+    }
+
+    public long getPoolConnectionTimeoutMs() {
+        return getLongProperty("db.pool.connectionTimeoutMs", 10_000);
+    }
+
+    public long getPoolIdleTimeoutMs() {
+        return getLongProperty("db.pool.idleTimeoutMs", 600_000);
+    }
+
+    public long getPoolMaxLifetimeMs() {
+        return getLongProperty("db.pool.maxLifetimeMs", 1_800_000);
+    }
+
+    public long getPoolLeakDetectionMs() {
+        return getLongProperty("db.pool.leakDetectionMs", 60_000);
+    }
+
+    /**
+     * Prepared statements cached per pooled connection (0 disables the cache)
+     */
+    public int getStatementCacheSize() {
+        return getIntProperty("db.stmtCacheSize", 64);
+    }
+
+    public boolean isServerPrepStmts() {
+        return getBooleanProperty("db.serverPrepStmts", true);
+    }
+
+    // Group commit settings
+
+    /**
+     * Commit sales from concurrent checkouts together in micro-batches
+     */
+    public boolean isGroupCommit() {
+        return getBooleanProperty("db.groupCommit", false);
+    }
+
+    public int getGroupCommitMaxBatch() {
+        return getIntProperty("db.groupCommit.maxBatch", 32);
+    }
+
+    public long getGroupCommitMaxDelayMs() {
+        return getLongProperty("db.groupCommit.maxDelayMs", 5);
+    }
 }
@@ -4,33 +4,107 @@ import com.github.sarxos.webcam.Webcam;
 import com.google.zxing.*;
 import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
 import com.google.zxing.common.HybridBinarizer;
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 
 /**
- * Barcode scanner using webcam and ZXing library
+ * Barcode scanner using webcam and ZXing library.
+ *
+ * One capture thread keeps a single-slot buffer filled with the newest frame;
+ * a frame that is replaced before any worker took it is dropped. Decode
+ * workers, each with its own MultiFormatReader, always take the newest frame.
+ * A code is reported once and again only after it has been out of view for
+ * the repeat cooldown.
+ *
+ * Frames are converted to grayscale into a buffer owned by each worker,
+ * cropped to a centred region of interest and optionally downscaled before
+ * ZXing sees them.
+ *
+ * The capture thread compares each frame with the previous one on a small
+ * thumbnail and does not hand unchanged frames to the decoders.
+ *
+ * Readers are configured by a DecodeProfile (scanner.profile). Adaptive
+ * profiles run a fast pass on every frame and a TRY_HARDER pass, which also
+ * tries the rotated frame, once every scanner.escalateAfter consecutive misses.
  */
 public class BarcodeScanner {
     
+    // Shared across instances so they can be reported on exit
+    private static final LongAdder FRAMES_CAPTURED = new LongAdder();
+    private static final LongAdder FRAMES_DECODED = new LongAdder();
+    private static final LongAdder FRAMES_DROPPED = new LongAdder();
+    private static final LongAdder FRAMES_SKIPPED = new LongAdder();
+    private static final LongAdder BARCODES_FOUND = new LongAdder();
+    private static final Histogram DECODE_LATENCY = new Histogram();
+    private static final Histogram DECODE_ALLOCATION = new Histogram();
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+    private static final Map<DecodeProfile, ProfileStats> PROFILE_STATS = new EnumMap<>(DecodeProfile.class);
+    
+    static {
+        for (DecodeProfile profile : DecodeProfile.values()) {
+            PROFILE_STATS.put(profile, new ProfileStats());
+        }
+    }
+    
     private Webcam webcam;
-    private Thread scanThread;
     private final AtomicBoolean running = new AtomicBoolean(false);
-    private final MultiFormatReader reader;
+    private final List<Thread> threads = new ArrayList<>();
+    private final int decodeThreads;
+    private final long repeatCooldownMs;
+    private final double roiWidth;
+    private final double roiHeight;
+    private final int downscale;
+    private final int motionThreshold;
+    private final long motionHoldMs;
+    private final long motionForceMs;
+    private final DecodeProfile profile;
+    private final int escalateAfter;
+    
+    // Single-slot frame buffer, guarded by frameLock
+    private final Object frameLock = new Object();
+    private BufferedImage pendingFrame;
+    
+    // Last reported code, guarded by this
+    private String lastBarcode;
+    private long lastSeenAt;
     
     /**
      * Create scanner with default webcam
      */
     public BarcodeScanner() {
-        reader = new MultiFormatReader();
+        AppConfig config = AppConfig.getInstance();
+        int defaultThreads = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+        this.decodeThreads = Math.max(1, config.getIntProperty("scanner.decodeThreads", defaultThreads));
+        this.roiWidth = parseFraction(config.getProperty("scanner.roi.width", "1.0"));
+        this.roiHeight = parseFraction(config.getProperty("scanner.roi.height", "0.5"));
+        this.downscale = config.getIntProperty("scanner.downscale", 1);
+        this.motionThreshold = config.getIntProperty("scanner.motion.threshold", 6);
+        this.motionHoldMs = config.getLongProperty("scanner.motion.holdMs", 1500);
+        this.motionForceMs = config.getLongProperty("scanner.motion.forceMs", 1000);
+        // A static scene is still decoded every forceMs; those sightings must fall
+        // inside the cooldown, or a code left in view is reported again each time
+        long cooldown = config.getLongProperty("scanner.repeatCooldownMs", 1000);
+        this.repeatCooldownMs = motionThreshold > 0
+                ? Math.max(cooldown, motionForceMs + motionForceMs / 2)
+                : cooldown;
+        this.profile = DecodeProfile.fromName(config.getProperty("scanner.profile", DecodeProfile.RETAIL_ADAPTIVE.name()));
+        this.escalateAfter = Math.max(1, config.getIntProperty("scanner.escalateAfter", 10));
     }
     
     /**
      * Create scanner with specific webcam
      */
     public BarcodeScanner(Webcam webcam) {
+        this();
         this.webcam = webcam;
-        reader = new MultiFormatReader();
     }
     
     /**
@@ -40,7 +114,7 @@ public class BarcodeScanner {
         try {
             webcam = Webcam.getDefault();
             if (webcam != null) {
-                webcam.setViewSize(webcam.getViewSizes()[webcam.getViewSizes().length - 1]);
+                webcam.setViewSize(preferredViewSize(webcam));
                 return true;
             }
         } catch (Exception e) {
@@ -75,28 +149,14 @@ public class BarcodeScanner {
         
         running.set(true);
         
-        scanThread = new Thread(() -> {
-            while (running.get()) {
-                try {
-                    BufferedImage image = webcam.getImage();
-                    if (image != null) {
-                        String barcode = decodeBarcode(image);
-                        if (barcode != null) {
-                            onBarcodeFound.accept(barcode);
-                            Thread.sleep(2000);
-                        }
-                    }
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                } catch (Exception e) {
-                    // Ignore frame capture errors
-                }
-            }
-        });
-        scanThread.setDaemon(true);
-        scanThread.start();
+        threads.add(new Thread(this::captureLoop, "barcode-capture"));
+        for (int i = 0; i < decodeThreads; i++) {
+            threads.add(new Thread(() -> decodeLoop(onBarcodeFound), "barcode-decode-" + i));
+        }
+        for (Thread t : threads) {
+            t.setDaemon(true);
+            t.start();
+        }
     }
     
     /**
@@ -104,8 +164,12 @@ public class BarcodeScanner {
      */
     public void stopScanning() {
         running.set(false);
-        if (scanThread != null) {
-            scanThread.interrupt();
+        for (Thread t : threads) {
+            t.interrupt();
+        }
+        threads.clear();
+        synchronized (frameLock) {
+            pendingFrame = null;
         }
     }
     
@@ -117,18 +181,127 @@ public class BarcodeScanner {
         // Don't close webcam here - let the dialog manage it
     }
     
+    /**
+     * Grab frames as fast as the camera delivers them into the single slot
+     */
+    private void captureLoop() {
+        FrameChangeDetector detector = new FrameChangeDetector(motionThreshold, motionHoldMs, motionForceMs);
+        BufferedImage previous = null;
+        while (running.get()) {
+            try {
+                BufferedImage image = webcam.getImage();
+                if (image == null || image == previous) {
+                    // No new frame from the driver yet
+                    Thread.sleep(10);
+                    continue;
+                }
+                previous = image;
+                FRAMES_CAPTURED.increment();
+                
+                if (!detector.shouldDecode(image, System.currentTimeMillis())) {
+                    FRAMES_SKIPPED.increment();
+                    continue;
+                }
+                
+                synchronized (frameLock) {
+                    if (pendingFrame != null) {
+                        FRAMES_DROPPED.increment();
+                    }
+                    pendingFrame = image;
+                    frameLock.notify();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                // Ignore frame capture errors
+            }
+        }
+    }
+    
+    /**
+     * Take the newest frame, decode it and report new codes
+     */
+    private void decodeLoop(Consumer<String> onBarcodeFound) {
+        MultiFormatReader fastReader = new MultiFormatReader();
+        fastReader.setHints(profile.getFastHints());
+        MultiFormatReader hardReader = new MultiFormatReader();
+        hardReader.setHints(profile.getHardHints());
+        GrayscaleFrame frame = new GrayscaleFrame(roiWidth, roiHeight, downscale);
+        ProfileStats stats = PROFILE_STATS.get(profile);
+        int misses = 0;
+        while (running.get()) {
+            try {
+                BufferedImage image;
+                synchronized (frameLock) {
+                    while (pendingFrame == null) {
+                        frameLock.wait();
+                    }
+                    image = pendingFrame;
+                    pendingFrame = null;
+                }
+                
+                long start = System.nanoTime();
+                long allocatedBefore = allocatedBytes();
+                BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(frame.load(image)));
+                String barcode = decodeBarcode(fastReader, bitmap);
+                if (barcode == null && profile.isAdaptive() && ++misses % escalateAfter == 0) {
+                    stats.escalations.increment();
+                    barcode = decodeBarcode(hardReader, bitmap);
+                    if (barcode != null) {
+                        stats.escalatedHits.increment();
+                    }
+                }
+                if (barcode != null) {
+                    misses = 0;
+                }
+                DECODE_LATENCY.recordSince(start);
+                stats.record(start, barcode != null);
+                if (allocatedBefore >= 0) {
+                    DECODE_ALLOCATION.record(allocatedBytes() - allocatedBefore);
+                }
+                FRAMES_DECODED.increment();
+                
+                if (barcode != null && isNewScan(barcode)) {
+                    BARCODES_FOUND.increment();
+                    onBarcodeFound.accept(barcode);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                // Ignore decode errors
+            }
+        }
+    }
+    
+    /**
+     * True unless the same code was already seen within the repeat cooldown.
+     * Every sighting extends the cooldown, so a code held in front of the
+     * camera is reported once. The cooldown is at least 1.5 x the forced
+     * decode interval, so the forced decodes of a static scene keep
+     * extending it too.
+     */
+    private synchronized boolean isNewScan(String barcode) {
+        long now = System.currentTimeMillis();
+        boolean repeat = barcode.equals(lastBarcode) && now - lastSeenAt < repeatCooldownMs;
+        lastBarcode = barcode;
+        lastSeenAt = now;
+        return !repeat;
+    }
+    
     /**
      * Decode barcode from image
      */
-    private String decodeBarcode(BufferedImage image) {
+    private static String decodeBarcode(MultiFormatReader reader, BinaryBitmap bitmap) {
         try {
-            LuminanceSource source = new BufferedImageLuminanceSource(image);
-            BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(source));
-            Result result = reader.decode(bitmap);
+            Result result = reader.decodeWithState(bitmap);
             return result.getText();
         } catch (NotFoundException e) {
             // No barcode found in image
             return null;
+        } finally {
+            reader.reset();
         }
     }
     
@@ -147,6 +320,49 @@ public class BarcodeScanner {
         }
     }
     
+    /**
+     * Largest view size no wider than scanner.viewWidth (default 640), or the
+     * smallest one if all are wider. Full HD frames only slow decoding down.
+     */
+    public static Dimension preferredViewSize(Webcam webcam) {
+        int maxWidth = AppConfig.getInstance().getIntProperty("scanner.viewWidth", 640);
+        Dimension best = null;
+        Dimension smallest = null;
+        for (Dimension size : webcam.getViewSizes()) {
+            if (smallest == null || size.width < smallest.width) {
+                smallest = size;
+            }
+            if (size.width <= maxWidth && (best == null || size.width > best.width)) {
+                best = size;
+            }
+        }
+        return best != null ? best : smallest;
+    }
+    
+    private static double parseFraction(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Nilai ROI scanner tidak valid: " + value);
+            return 1.0;
+        }
+    }
+    
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            return bean;
+        }
+        return null;
+    }
+    
+    /**
+     * Bytes allocated by the current thread so far, or -1 when unsupported
+     */
+    private static long allocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+    
     /**
      * Check if webcam is available
      */
@@ -168,4 +384,119 @@ public class BarcodeScanner {
             return java.util.Collections.emptyList();
         }
     }
+    
+    // Metrics
+    
+    public static long getFramesCaptured() {
+        return FRAMES_CAPTURED.sum();
+    }
+    
+    public static long getFramesDecoded() {
+        return FRAMES_DECODED.sum();
+    }
+    
+    /**
+     * Frames replaced by a newer one before any worker took them
+     */
+    public static long getFramesDropped() {
+        return FRAMES_DROPPED.sum();
+    }
+    
+    /**
+     * Frames not decoded because nothing changed in front of the camera
+     */
+    public static long getFramesSkipped() {
+        return FRAMES_SKIPPED.sum();
+    }
+    
+    public static double getSkipRatio() {
+        long captured = FRAMES_CAPTURED.sum();
+        return captured == 0 ? 0 : (double) FRAMES_SKIPPED.sum() / captured;
+    }
+    
+    /**
+     * Decode time avoided by skipping, estimated from the mean decode latency
+     */
+    public static long getCpuSavedMillis() {
+        return (long) (FRAMES_SKIPPED.sum() * DECODE_LATENCY.getMean() / 1000);
+    }
+    
+    public static long getBarcodesFound() {
+        return BARCODES_FOUND.sum();
+    }
+    
+    /**
+     * Time per decode attempt in microseconds
+     */
+    public static Histogram getDecodeLatency() {
+        return DECODE_LATENCY;
+    }
+    
+    /**
+     * Heap allocated per decode attempt in bytes
+     */
+    public static Histogram getDecodeAllocation() {
+        return DECODE_ALLOCATION;
+    }
+    
+    /**
+     * Decode attempts made with profile
+     */
+    public static long getAttempts(DecodeProfile profile) {
+        return PROFILE_STATS.get(profile).attempts.sum();
+    }
+    
+    /**
+     * Share of decode attempts with profile that found a barcode
+     */
+    public static double getSuccessRate(DecodeProfile profile) {
+        ProfileStats stats = PROFILE_STATS.get(profile);
+        long attempts = stats.attempts.sum();
+        return attempts == 0 ? 0 : (double) stats.hits.sum() / attempts;
+    }
+    
+    /**
+     * Decode time per attempt with profile, in microseconds
+     */
+    public static Histogram getLatency(DecodeProfile profile) {
+        return PROFILE_STATS.get(profile).latency;
+    }
+    
+    public static String getStatsSummary() {
+        return String.format("webcam scanner captured=%d decoded=%d dropped=%d skipped=%d (%.1f%%, ~%dms cpu saved) found=%d%n"
+                        + "  decode: %s%n"
+                        + "  allocated: %s",
+                getFramesCaptured(), getFramesDecoded(), getFramesDropped(), getFramesSkipped(),
+                getSkipRatio() * 100, getCpuSavedMillis(), getBarcodesFound(),
+                DECODE_LATENCY.describe("us"), DECODE_ALLOCATION.describe("B"))
+                + profileSummary();
+    }
+    
+    private static String profileSummary() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<DecodeProfile, ProfileStats> entry : PROFILE_STATS.entrySet()) {
+            ProfileStats stats = entry.getValue();
+            if (stats.attempts.sum() == 0) continue;
+            sb.append(String.format("%n  %s attempts=%d success=%.1f%% escalations=%d escalated-hits=%d latency: %s",
+                    entry.getKey(), stats.attempts.sum(), getSuccessRate(entry.getKey()) * 100,
+                    stats.escalations.sum(), stats.escalatedHits.sum(), stats.latency.describe("us")));
+        }
+        return sb.toString();
+    }
+    
+    private static class ProfileStats {
+        final LongAdder attempts = new LongAdder();
+        final LongAdder hits = new LongAdder();
+        final LongAdder escalations = new LongAdder();
+        final LongAdder escalatedHits = new LongAdder();
+        final Histogram latency = new Histogram();
+        
+        void record(long startNanos, boolean found) {
+            attempts.increment();
+            if (found) {
+                hits.increment();
+            }
+            latency.recordSince(startNanos);
+        }
+    }
 }
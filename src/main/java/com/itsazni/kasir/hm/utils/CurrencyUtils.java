@@ -1,31 +1,55 @@
 package com.itsazni.kasir.hm.utils;
 
+import com.itsazni.kasir.hm.models.Money;
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
 import java.text.NumberFormat;
 import java.util.Locale;
 
 /**
- * Currency formatting utility for Indonesian Rupiah
+ * Currency formatting utility for Indonesian Rupiah.
+ *
+ * Amounts are formatted by RupiahFormat, so these methods are safe to call
+ * from any thread.
  */
 public class CurrencyUtils {
     
     private static final Locale INDONESIA = new Locale("id", "ID");
-    private static final NumberFormat CURRENCY_FORMAT = NumberFormat.getCurrencyInstance(INDONESIA);
-    private static final NumberFormat NUMBER_FORMAT = NumberFormat.getNumberInstance(INDONESIA);
+    // NumberFormat is not thread-safe
+    private static final ThreadLocal<NumberFormat> NUMBER_FORMAT =
+            ThreadLocal.withInitial(() -> NumberFormat.getNumberInstance(INDONESIA));
     
     /**
      * Format BigDecimal as Indonesian Rupiah
      */
     public static String format(BigDecimal amount) {
         if (amount == null) return "Rp 0";
-        return CURRENCY_FORMAT.format(amount);
+        // Same rounding as NumberFormat
+        BigInteger cents = amount.setScale(2, RoundingMode.HALF_EVEN).unscaledValue();
+        if (cents.bitLength() >= Long.SIZE) {
+            return NumberFormat.getCurrencyInstance(INDONESIA).format(amount);
+        }
+        return RupiahFormat.format(cents.longValue());
+    }
+    
+    /**
+     * Format Money as Indonesian Rupiah
+     */
+    public static String format(Money amount) {
+        if (amount == null) return "Rp 0";
+        return RupiahFormat.format(amount);
     }
     
     /**
      * Format double as Indonesian Rupiah
      */
     public static String format(double amount) {
-        return CURRENCY_FORMAT.format(amount);
+        if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+            return NumberFormat.getCurrencyInstance(INDONESIA).format(amount);
+        }
+        // The exact binary value, as NumberFormat rounds it
+        return format(new BigDecimal(amount));
     }
     
     /**
@@ -33,24 +57,20 @@ public class CurrencyUtils {
      */
     public static String formatNumber(BigDecimal amount) {
         if (amount == null) return "0";
-        return NUMBER_FORMAT.format(amount);
+        return NUMBER_FORMAT.get().format(amount);
     }
     
     /**
-     * Parse string to BigDecimal (removes non-numeric characters)
+     * Parse string to BigDecimal (ignores non-numeric characters)
      */
     public static BigDecimal parse(String text) {
-        if (text == null || text.isEmpty()) return BigDecimal.ZERO;
-        
-        // Remove all non-numeric characters except decimal point
-        String cleaned = text.replaceAll("[^\\d,.]", "");
-        // Replace comma with dot for BigDecimal parsing
-        cleaned = cleaned.replace(",", ".");
-        
-        try {
-            return new BigDecimal(cleaned);
-        } catch (NumberFormatException e) {
-            return BigDecimal.ZERO;
-        }
+        return BigDecimal.valueOf(RupiahFormat.parseCents(text), 2);
+    }
+    
+    /**
+     * Parse string to Money (ignores non-numeric characters)
+     */
+    public static Money parseMoney(String text) {
+        return Money.ofCents(RupiahFormat.parseCents(text));
     }
 }
@@ -0,0 +1,74 @@
+package com.itsazni.kasir.hm.utils;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * ZXing decode settings for the webcam scanner, selected with scanner.profile
+ */
+public enum DecodeProfile {
+
+    /** Retail 1D symbologies only, fast pass on every frame */
+    RETAIL(false, BarcodeFormat.EAN_13, BarcodeFormat.EAN_8, BarcodeFormat.UPC_A,
+            BarcodeFormat.UPC_E, BarcodeFormat.CODE_128),
+
+    /** Like RETAIL, escalating to TRY_HARDER and rotation after repeated misses */
+    RETAIL_ADAPTIVE(true, BarcodeFormat.EAN_13, BarcodeFormat.EAN_8, BarcodeFormat.UPC_A,
+            BarcodeFormat.UPC_E, BarcodeFormat.CODE_128),
+
+    /** Every symbology ZXing knows, no hints */
+    ALL_FORMATS(false);
+
+    private final boolean adaptive;
+    private final Map<DecodeHintType, Object> fastHints;
+    private final Map<DecodeHintType, Object> hardHints;
+
+    DecodeProfile(boolean adaptive, BarcodeFormat... formats) {
+        this.adaptive = adaptive;
+
+        Map<DecodeHintType, Object> fast = new EnumMap<>(DecodeHintType.class);
+        if (formats.length > 0) {
+            fast.put(DecodeHintType.POSSIBLE_FORMATS, List.of(formats));
+        }
+        Map<DecodeHintType, Object> hard = new EnumMap<>(fast);
+        hard.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+
+        this.fastHints = Collections.unmodifiableMap(fast);
+        this.hardHints = Collections.unmodifiableMap(hard);
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Hints for the pass run on every frame
+     */
+    public Map<DecodeHintType, Object> getFastHints() {
+        return fastHints;
+    }
+
+    /**
+     * Hints for the escalated pass of an adaptive profile
+     */
+    public Map<DecodeHintType, Object> getHardHints() {
+        return hardHints;
+    }
+
+    /**
+     * Profile by name, RETAIL_ADAPTIVE when name is unknown
+     */
+    public static DecodeProfile fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            System.err.println("Profil scanner tidak dikenal: " + name);
+            return RETAIL_ADAPTIVE;
+        }
+    }
+}
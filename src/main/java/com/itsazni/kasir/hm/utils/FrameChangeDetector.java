@@ -0,0 +1,94 @@
+package com.itsazni.kasir.hm.utils;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Cheap motion check used to skip decoding frames that did not change.
+ *
+ * Each frame is sampled into a 32x24 luma thumbnail and compared with the
+ * previous one. Frames whose mean absolute difference exceeds the threshold
+ * count as motion; decoding then stays at full rate for holdMs so a code that
+ * is moved in and held still is still read. While the scene is static a frame
+ * is decoded every forceMs anyway.
+ */
+class FrameChangeDetector {
+
+    private static final int WIDTH = 32;
+    private static final int HEIGHT = 24;
+
+    private final int threshold;
+    private final long holdMs;
+    private final long forceMs;
+
+    private int[] previous = new int[WIDTH * HEIGHT];
+    private int[] current = new int[WIDTH * HEIGHT];
+    private boolean primed;
+    private long lastMotionAt;
+    private long lastDecodeAt;
+
+    /**
+     * @param threshold mean absolute luma difference (0-255) that counts as motion, 0 disables gating
+     */
+    FrameChangeDetector(int threshold, long holdMs, long forceMs) {
+        this.threshold = threshold;
+        this.holdMs = holdMs;
+        this.forceMs = forceMs;
+    }
+
+    /**
+     * True when image should be decoded
+     */
+    boolean shouldDecode(BufferedImage image, long now) {
+        if (threshold <= 0) return true;
+
+        sample(image);
+        int[] swap = previous;
+        previous = current;
+        current = swap;
+
+        if (!primed) {
+            primed = true;
+            return decodeAt(now);
+        }
+        if (meanDifference() > threshold) {
+            lastMotionAt = now;
+            return decodeAt(now);
+        }
+        if (now - lastMotionAt < holdMs || now - lastDecodeAt >= forceMs) {
+            return decodeAt(now);
+        }
+        return false;
+    }
+
+    private boolean decodeAt(long now) {
+        lastDecodeAt = now;
+        return true;
+    }
+
+    /**
+     * Luma of the centre pixel of each thumbnail cell into current
+     */
+    private void sample(BufferedImage image) {
+        int cellWidth = image.getWidth() / WIDTH;
+        int cellHeight = image.getHeight() / HEIGHT;
+        int i = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            int sy = y * cellHeight + cellHeight / 2;
+            for (int x = 0; x < WIDTH; x++) {
+                int pixel = image.getRGB(x * cellWidth + cellWidth / 2, sy);
+                current[i++] = (((pixel >> 16) & 0xFF) * 77 + ((pixel >> 8) & 0xFF) * 150 + (pixel & 0xFF) * 29) >> 8;
+            }
+        }
+    }
+
+    /**
+     * Mean absolute difference between current and previous (already swapped)
+     */
+    private int meanDifference() {
+        int sum = 0;
+        for (int i = 0; i < previous.length; i++) {
+            sum += Math.abs(previous[i] - current[i]);
+        }
+        return sum / previous.length;
+    }
+}
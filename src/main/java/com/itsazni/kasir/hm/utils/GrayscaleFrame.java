@@ -0,0 +1,174 @@
+package com.itsazni.kasir.hm.utils;
+
+import com.google.zxing.LuminanceSource;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+
+/**
+ * Reusable grayscale buffer for one decode worker.
+ *
+ * Each frame is cropped to a region of interest, optionally downscaled and
+ * converted to 8-bit luma into the same byte array, which is handed to the
+ * binarizer without copying it.
+ */
+class GrayscaleFrame {
+
+    private final double roiWidth;
+    private final double roiHeight;
+    private final int downscale;
+
+    private byte[] luma = new byte[0];
+    private int[] row = new int[0];
+
+    /**
+     * @param roiWidth  fraction of the frame width to keep, centred
+     * @param roiHeight fraction of the frame height to keep, centred
+     * @param downscale keep every n-th row and average n pixels per column
+     */
+    GrayscaleFrame(double roiWidth, double roiHeight, int downscale) {
+        this.roiWidth = clamp(roiWidth);
+        this.roiHeight = clamp(roiHeight);
+        this.downscale = Math.max(1, downscale);
+    }
+
+    /**
+     * Convert image into the internal buffer. The returned source is only
+     * valid until the next call.
+     */
+    LuminanceSource load(BufferedImage image) {
+        int cropWidth = Math.max(1, (int) (image.getWidth() * roiWidth));
+        int cropHeight = Math.max(1, (int) (image.getHeight() * roiHeight));
+        int left = (image.getWidth() - cropWidth) / 2;
+        int top = (image.getHeight() - cropHeight) / 2;
+
+        int width = cropWidth / downscale;
+        int height = cropHeight / downscale;
+        if (luma.length != width * height) {
+            luma = new byte[width * height];
+        }
+
+        Raster raster = image.getRaster();
+        if (raster.getDataBuffer() instanceof DataBufferByte
+                && raster.getSampleModel() instanceof ComponentSampleModel
+                && raster.getNumBands() >= 3) {
+            loadBytes(raster, left, top, width, height);
+        } else {
+            loadRgb(image, left, top, width, height);
+        }
+        return new Source(luma, width, height);
+    }
+
+    /**
+     * Fast path for the interleaved byte rasters (3BYTE_BGR etc.) most webcams deliver
+     */
+    private void loadBytes(Raster raster, int left, int top, int width, int height) {
+        ComponentSampleModel model = (ComponentSampleModel) raster.getSampleModel();
+        DataBufferByte buffer = (DataBufferByte) raster.getDataBuffer();
+        byte[] data = buffer.getData();
+        int[] bandOffsets = model.getBandOffsets();
+        int red = bandOffsets[0];
+        int green = bandOffsets[1];
+        int blue = bandOffsets[2];
+        int pixelStride = model.getPixelStride();
+        int scanlineStride = model.getScanlineStride();
+        int base = buffer.getOffset()
+                - raster.getSampleModelTranslateY() * scanlineStride
+                - raster.getSampleModelTranslateX() * pixelStride;
+
+        int out = 0;
+        for (int y = 0; y < height; y++) {
+            int in = base + (top + y * downscale) * scanlineStride + left * pixelStride;
+            for (int x = 0; x < width; x++) {
+                int sum = 0;
+                for (int i = 0; i < downscale; i++) {
+                    sum += luminance(data[in + red] & 0xFF, data[in + green] & 0xFF, data[in + blue] & 0xFF);
+                    in += pixelStride;
+                }
+                luma[out++] = (byte) (sum / downscale);
+            }
+        }
+    }
+
+    /**
+     * Any other image type, one row at a time through a reused int buffer
+     */
+    private void loadRgb(BufferedImage image, int left, int top, int width, int height) {
+        int span = width * downscale;
+        if (row.length < span) {
+            row = new int[span];
+        }
+
+        int out = 0;
+        for (int y = 0; y < height; y++) {
+            image.getRGB(left, top + y * downscale, span, 1, row, 0, span);
+            int in = 0;
+            for (int x = 0; x < width; x++) {
+                int sum = 0;
+                for (int i = 0; i < downscale; i++) {
+                    int pixel = row[in++];
+                    sum += luminance((pixel >> 16) & 0xFF, (pixel >> 8) & 0xFF, pixel & 0xFF);
+                }
+                luma[out++] = (byte) (sum / downscale);
+            }
+        }
+    }
+
+    /**
+     * Same weights as ZXing's BufferedImageLuminanceSource
+     */
+    private static int luminance(int r, int g, int b) {
+        return (306 * r + 601 * g + 117 * b + 0x200) >> 10;
+    }
+
+    private static double clamp(double fraction) {
+        return fraction <= 0 || fraction > 1 ? 1 : fraction;
+    }
+
+    /**
+     * Luminance source over a luma array of exactly width x height bytes.
+     * Supports rotation so TRY_HARDER can also look for vertical barcodes.
+     */
+    private static class Source extends LuminanceSource {
+        private final byte[] data;
+
+        Source(byte[] data, int width, int height) {
+            super(width, height);
+            this.data = data;
+        }
+
+        @Override
+        public byte[] getRow(int y, byte[] row) {
+            int width = getWidth();
+            if (row == null || row.length < width) {
+                row = new byte[width];
+            }
+            System.arraycopy(data, y * width, row, 0, width);
+            return row;
+        }
+
+        @Override
+        public byte[] getMatrix() {
+            return data;
+        }
+
+        @Override
+        public boolean isRotateSupported() {
+            return true;
+        }
+
+        @Override
+        public LuminanceSource rotateCounterClockwise() {
+            int width = getWidth();
+            int height = getHeight();
+            byte[] rotated = new byte[width * height];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    rotated[(width - 1 - x) * height + y] = data[y * width + x];
+                }
+            }
+            return new Source(rotated, height, width);
+        }
+    }
+}
@@ -1,13 +1,12 @@
 package com.itsazni.kasir.hm.utils;
 
+import com.itsazni.kasir.hm.models.Money;
 import com.itsazni.kasir.hm.models.Transaction;
 import com.itsazni.kasir.hm.models.TransactionItem;
 import java.awt.print.*;
 import java.awt.*;
 import java.math.BigDecimal;
-import java.text.NumberFormat;
 import java.time.format.DateTimeFormatter;
-import java.util.Locale;
 import javax.swing.*;
 
 /**
@@ -17,7 +16,6 @@ public class ReceiptPrinter implements Printable {
     
     private final Transaction transaction;
     private final String cashierName;
-    private static final NumberFormat CURRENCY_FORMAT = NumberFormat.getCurrencyInstance(new Locale("id", "ID"));
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
     
     private static final int RECEIPT_WIDTH = 280;
@@ -91,7 +89,12 @@ public class ReceiptPrinter implements Printable {
         sb.append(divider).append("\n");
         
         // Transaction info
-        sb.append(String.format("No: TRX-%05d\n", transaction.getId()));
+        if (transaction.getId() > 0) {
+            sb.append(String.format("No: TRX-%05d\n", transaction.getId()));
+        } else {
+            // Not synced to the database yet
+            sb.append("No: ").append(transaction.getClientRef()).append("\n");
+        }
         sb.append(String.format("Tgl: %s\n", transaction.getTransactionDate().format(DATE_FORMAT)));
         sb.append(String.format("Kasir: %s\n", cashierName));
         sb.append(dividerThin).append("\n");
@@ -169,7 +172,7 @@ public class ReceiptPrinter implements Printable {
         return text.substring(0, maxLength - 2) + "..";
     }
     
-    private String formatCurrency(BigDecimal amount) {
-        return CURRENCY_FORMAT.format(amount).replace("Rp", "Rp ");
+    private String formatCurrency(Money amount) {
+        return RupiahFormat.format(amount.getCents(), "Rp ");
     }
 }
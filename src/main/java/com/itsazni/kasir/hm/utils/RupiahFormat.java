@@ -0,0 +1,129 @@
+package com.itsazni.kasir.hm.utils;
+
+import com.itsazni.kasir.hm.models.Money;
+
+/**
+ * Formats and parses rupiah amounts held as cents, without NumberFormat
+ * and without regular expressions.
+ *
+ * Output is the same as NumberFormat.getCurrencyInstance(id_ID), e.g.
+ * "Rp1.234.567,50" and "-Rp1.000,00". Digits are written into a per-thread
+ * buffer, so all methods may be called from any thread.
+ */
+public final class RupiahFormat {
+
+    public static final String SYMBOL = "Rp";
+
+    // Sign, symbol, 19 digits with 6 group separators and 3 for ",00"
+    private static final int BUFFER_SIZE = 48;
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[BUFFER_SIZE]);
+
+    private RupiahFormat() {
+    }
+
+    public static String format(Money amount) {
+        return format(amount.getCents(), SYMBOL);
+    }
+
+    public static String format(long cents) {
+        return format(cents, SYMBOL);
+    }
+
+    /**
+     * Format with symbol in place of "Rp", e.g. "Rp " for receipts
+     */
+    public static String format(long cents, String symbol) {
+        char[] buffer = BUFFER.get();
+        int start = write(buffer, cents, symbol);
+        return new String(buffer, start, buffer.length - start);
+    }
+
+    /**
+     * Append the formatted amount to out without creating a String
+     */
+    public static StringBuilder append(StringBuilder out, long cents, String symbol) {
+        char[] buffer = BUFFER.get();
+        int start = write(buffer, cents, symbol);
+        return out.append(buffer, start, buffer.length - start);
+    }
+
+    /**
+     * Amount typed by a user, in cents. Everything but digits, '.' and ','
+     * is skipped and either of '.' and ',' marks the decimals; text with
+     * more than one of them, or without digits, is zero. Decimals past the
+     * second are rounded half up.
+     *
+     * @throws ArithmeticException if the amount does not fit in a long
+     */
+    public static long parseCents(CharSequence text) {
+        if (text == null) return 0;
+
+        long whole = 0;
+        int fraction = 0;
+        int fractionDigits = 0;
+        boolean roundUp = false;
+        boolean separator = false;
+        boolean digits = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+                int digit = c - '0';
+                if (!separator) {
+                    whole = Math.addExact(Math.multiplyExact(whole, 10), digit);
+                } else if (fractionDigits < 2) {
+                    fraction = fraction * 10 + digit;
+                    fractionDigits++;
+                } else if (fractionDigits == 2) {
+                    roundUp = digit >= 5;
+                    fractionDigits++;
+                }
+            } else if (c == '.' || c == ',') {
+                if (separator) return 0;
+                separator = true;
+            }
+        }
+        if (!digits) return 0;
+
+        if (fractionDigits == 1) fraction *= 10;
+        long cents = Math.addExact(Math.multiplyExact(whole, 100), fraction);
+        return roundUp ? Math.addExact(cents, 1) : cents;
+    }
+
+    /**
+     * Write the amount so that it ends at the end of buffer; returns where
+     * it starts
+     */
+    private static int write(char[] buffer, long cents, String symbol) {
+        boolean negative = cents < 0;
+        // Work on the negative value so Long.MIN_VALUE needs no special case
+        long value = negative ? cents : -cents;
+        int pos = buffer.length;
+
+        int fraction = (int) -(value % 100);
+        value /= 100;
+        buffer[--pos] = (char) ('0' + fraction % 10);
+        buffer[--pos] = (char) ('0' + fraction / 10);
+        buffer[--pos] = ',';
+
+        int groupDigits = 0;
+        do {
+            if (groupDigits == 3) {
+                buffer[--pos] = '.';
+                groupDigits = 0;
+            }
+            buffer[--pos] = (char) ('0' - value % 10);
+            value /= 10;
+            groupDigits++;
+        } while (value != 0);
+
+        for (int i = symbol.length() - 1; i >= 0; i--) {
+            buffer[--pos] = symbol.charAt(i);
+        }
+        if (negative) {
+            buffer[--pos] = '-';
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,16 @@
+-- Checkout journal, ID blocks and sales rollup for databases created before them
+ALTER TABLE transactions ADD COLUMN client_ref VARCHAR(40) NULL UNIQUE;
+
+CREATE TABLE IF NOT EXISTS id_sequences (
+    name VARCHAR(40) PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS sales_rollup (
+    sale_date DATE NOT NULL,
+    sale_hour TINYINT NOT NULL,
+    user_id INT NOT NULL DEFAULT 0,
+    transaction_count INT NOT NULL DEFAULT 0,
+    total_sales DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (sale_date, sale_hour, user_id)
+);
@@ -0,0 +1,8 @@
+-- Indexes for date range, product name and category queries
+ALTER TABLE transactions ADD INDEX idx_transaction_date (transaction_date);
+
+ALTER TABLE products ADD INDEX idx_products_name (name);
+
+ALTER TABLE products ADD INDEX idx_products_category (category, name);
+
+-- transaction_items.product_id is already indexed by its foreign key
@@ -0,0 +1,5 @@
+-- Progress markers for one-off data jobs such as the sales rollup backfill
+CREATE TABLE IF NOT EXISTS app_state (
+    name VARCHAR(40) PRIMARY KEY,
+    value VARCHAR(40) NOT NULL
+);